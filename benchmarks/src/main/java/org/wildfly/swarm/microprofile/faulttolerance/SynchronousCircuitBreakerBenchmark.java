@@ -0,0 +1,115 @@
+/*
+ * Copyright 2017 Red Hat, Inc, and individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.wildfly.swarm.microprofile.faulttolerance;
+
+import java.util.concurrent.TimeUnit;
+
+import org.eclipse.microprofile.faulttolerance.CircuitBreaker;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.wildfly.swarm.microprofile.faulttolerance.config.CircuitBreakerConfig;
+
+/**
+ * Measures the contention of a single {@link SynchronousCircuitBreaker} shared by all benchmark threads. The circuit stays CLOSED, which is the state a
+ * healthy hot method spends virtually all of its time in.
+ * <p>
+ * The class is placed in the implementation package because the circuit breaker is package-private. {@link #main(String[])} runs the benchmarks with 1, 2, 4,
+ * 8, 16, 32 and 64 threads; any other JMH command line option is passed through.
+ * </p>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SynchronousCircuitBreakerBenchmark {
+
+    static final int[] THREADS = { 1, 2, 4, 8, 16, 32, 64 };
+
+    /**
+     * Every n-th execution of {@link #closedMixed(ThreadState)} fails. The failure ratio stays well below the default {@code failureRatio} of the guarded
+     * method so that the circuit never opens.
+     */
+    static final int FAILURE_INTERVAL = 10;
+
+    @Setup
+    public void setup() throws NoSuchMethodException {
+        circuitBreaker = new SynchronousCircuitBreaker(new CircuitBreakerConfig(Guarded.class.getMethod("call")));
+    }
+
+    @Benchmark
+    public boolean isOpen() {
+        return circuitBreaker.isOpen();
+    }
+
+    @Benchmark
+    public boolean closedSuccess() {
+        boolean allowed = circuitBreaker.attemptExecution();
+        circuitBreaker.executionSucceeded();
+        return allowed;
+    }
+
+    @Benchmark
+    public boolean closedMixed(ThreadState threadState) {
+        boolean allowed = circuitBreaker.attemptExecution();
+        if (++threadState.executions % FAILURE_INTERVAL == 0) {
+            circuitBreaker.executionFailed();
+        } else {
+            circuitBreaker.executionSucceeded();
+        }
+        return allowed;
+    }
+
+    public static void main(String[] args) throws RunnerException, CommandLineOptionException {
+        CommandLineOptions commandLineOptions = new CommandLineOptions(args);
+        for (int threads : THREADS) {
+            new Runner(new OptionsBuilder().parent(commandLineOptions).include(SynchronousCircuitBreakerBenchmark.class.getName()).threads(threads).build())
+                    .run();
+        }
+    }
+
+    private SynchronousCircuitBreaker circuitBreaker;
+
+    @State(Scope.Thread)
+    public static class ThreadState {
+
+        private long executions;
+
+    }
+
+    public static class Guarded {
+
+        @CircuitBreaker(requestVolumeThreshold = 20)
+        public void call() {
+        }
+
+    }
+
+}
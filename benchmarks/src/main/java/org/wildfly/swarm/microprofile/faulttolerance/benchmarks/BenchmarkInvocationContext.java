@@ -0,0 +1,91 @@
+/*
+ * Copyright 2017 Red Hat, Inc, and individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.wildfly.swarm.microprofile.faulttolerance.benchmarks;
+
+import java.lang.reflect.Constructor;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.util.Collections;
+import java.util.Map;
+
+import javax.interceptor.InvocationContext;
+
+/**
+ * A minimal {@link InvocationContext} which invokes the target method directly, i.e. without any container involved. The instance is immutable and may be
+ * shared by all benchmark threads.
+ */
+class BenchmarkInvocationContext implements InvocationContext {
+
+    private static final Object[] NO_PARAMS = new Object[0];
+
+    BenchmarkInvocationContext(Object target, Method method) {
+        this.target = target;
+        this.method = method;
+    }
+
+    @Override
+    public Object getTarget() {
+        return target;
+    }
+
+    @Override
+    public Object getTimer() {
+        return null;
+    }
+
+    @Override
+    public Method getMethod() {
+        return method;
+    }
+
+    @Override
+    public Constructor<?> getConstructor() {
+        return null;
+    }
+
+    @Override
+    public Object[] getParameters() {
+        return NO_PARAMS;
+    }
+
+    @Override
+    public void setParameters(Object[] params) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public Map<String, Object> getContextData() {
+        return Collections.emptyMap();
+    }
+
+    @Override
+    public Object proceed() throws Exception {
+        try {
+            return method.invoke(target, NO_PARAMS);
+        } catch (InvocationTargetException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof Exception) {
+                throw (Exception) cause;
+            }
+            throw e;
+        }
+    }
+
+    private final Object target;
+
+    private final Method method;
+
+}
@@ -0,0 +1,116 @@
+/*
+ * Copyright 2017 Red Hat, Inc, and individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.wildfly.swarm.microprofile.faulttolerance.benchmarks;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Future;
+
+import org.eclipse.microprofile.faulttolerance.Asynchronous;
+import org.eclipse.microprofile.faulttolerance.Bulkhead;
+import org.eclipse.microprofile.faulttolerance.CircuitBreaker;
+import org.eclipse.microprofile.faulttolerance.Fallback;
+import org.eclipse.microprofile.faulttolerance.Retry;
+import org.eclipse.microprofile.faulttolerance.Timeout;
+
+/**
+ * The fault tolerance operations exercised by {@link InterceptorBenchmark}. The business logic is trivial on purpose so that the interceptor overhead
+ * dominates the measurement.
+ * <p>
+ * Bulkheads are sized well above the number of benchmark threads, so that the measurement reflects the permit bookkeeping and not rejections.
+ * </p>
+ */
+public class BenchmarkService {
+
+    static final String RESULT = "result";
+
+    static final String FALLBACK = "fallback";
+
+    static final int BULKHEAD_SIZE = 256;
+
+    public String none() {
+        return RESULT;
+    }
+
+    @Timeout(1000)
+    public String timeout() {
+        return RESULT;
+    }
+
+    @Retry(maxRetries = 3)
+    public String retry() {
+        return RESULT;
+    }
+
+    @CircuitBreaker(requestVolumeThreshold = 20)
+    public String circuitBreaker() {
+        return RESULT;
+    }
+
+    @Bulkhead(BULKHEAD_SIZE)
+    public String bulkhead() {
+        return RESULT;
+    }
+
+    @Fallback(fallbackMethod = "fallbackMethod")
+    public String fallback() {
+        return RESULT;
+    }
+
+    @Fallback(fallbackMethod = "fallbackMethod")
+    public String fallbackTaken() {
+        throw new IllegalStateException();
+    }
+
+    @Asynchronous
+    public Future<String> async() {
+        return CompletableFuture.completedFuture(RESULT);
+    }
+
+    @Timeout(1000)
+    @Retry(maxRetries = 3)
+    @CircuitBreaker(requestVolumeThreshold = 20)
+    public String timeoutRetryCircuitBreaker() {
+        return RESULT;
+    }
+
+    @Timeout(1000)
+    @Retry(maxRetries = 3)
+    @CircuitBreaker(requestVolumeThreshold = 20)
+    @Bulkhead(BULKHEAD_SIZE)
+    @Fallback(fallbackMethod = "fallbackMethod")
+    public String all() {
+        return RESULT;
+    }
+
+    @Asynchronous
+    @Timeout(1000)
+    @Retry(maxRetries = 3)
+    @CircuitBreaker(requestVolumeThreshold = 20)
+    @Bulkhead(BULKHEAD_SIZE)
+    @Fallback(fallbackMethod = "asyncFallbackMethod")
+    public Future<String> asyncAll() {
+        return CompletableFuture.completedFuture(RESULT);
+    }
+
+    String fallbackMethod() {
+        return FALLBACK;
+    }
+
+    Future<String> asyncFallbackMethod() {
+        return CompletableFuture.completedFuture(FALLBACK);
+    }
+
+}
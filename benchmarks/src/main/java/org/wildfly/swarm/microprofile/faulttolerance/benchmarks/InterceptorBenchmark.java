@@ -0,0 +1,161 @@
+/*
+ * Copyright 2017 Red Hat, Inc, and individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.wildfly.swarm.microprofile.faulttolerance.benchmarks;
+
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import javax.interceptor.InvocationContext;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.wildfly.swarm.microprofile.faulttolerance.ExecutionEngine;
+import org.wildfly.swarm.microprofile.faulttolerance.HystrixCommandInterceptor;
+
+/**
+ * Drives {@link HystrixCommandInterceptor#interceptCommand(InvocationContext)} directly, one benchmark per annotation combination.
+ * <p>
+ * Throughput and sample time (percentiles) are reported for every benchmark and {@link ExecutionEngine}. Use {@code -t} to vary the number of threads and
+ * {@code -prof gc} to report the allocation rate, e.g.:
+ * </p>
+ *
+ * <pre>
+ * java -jar benchmarks/target/benchmarks.jar InterceptorBenchmark -t 1 -prof gc
+ * java -jar benchmarks/target/benchmarks.jar InterceptorBenchmark -t max -prof gc
+ * </pre>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({ Mode.Throughput, Mode.SampleTime })
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class InterceptorBenchmark {
+
+    @Param({ ExecutionEngine.HYSTRIX, ExecutionEngine.NATIVE })
+    private String engine;
+
+    private HystrixCommandInterceptor interceptor;
+
+    private InvocationContext none;
+
+    private InvocationContext timeout;
+
+    private InvocationContext retry;
+
+    private InvocationContext circuitBreaker;
+
+    private InvocationContext bulkhead;
+
+    private InvocationContext fallback;
+
+    private InvocationContext fallbackTaken;
+
+    private InvocationContext async;
+
+    private InvocationContext timeoutRetryCircuitBreaker;
+
+    private InvocationContext all;
+
+    private InvocationContext asyncAll;
+
+    @Setup
+    public void setup() {
+        // Every parameter combination runs in a separate fork
+        System.setProperty(ExecutionEngine.CONFIG_KEY, engine);
+        BenchmarkService service = new BenchmarkService();
+        interceptor = InterceptorHarness.newInterceptor();
+        none = InterceptorHarness.invocation(service, "none");
+        timeout = InterceptorHarness.invocation(service, "timeout");
+        retry = InterceptorHarness.invocation(service, "retry");
+        circuitBreaker = InterceptorHarness.invocation(service, "circuitBreaker");
+        bulkhead = InterceptorHarness.invocation(service, "bulkhead");
+        fallback = InterceptorHarness.invocation(service, "fallback");
+        fallbackTaken = InterceptorHarness.invocation(service, "fallbackTaken");
+        async = InterceptorHarness.invocation(service, "async");
+        timeoutRetryCircuitBreaker = InterceptorHarness.invocation(service, "timeoutRetryCircuitBreaker");
+        all = InterceptorHarness.invocation(service, "all");
+        asyncAll = InterceptorHarness.invocation(service, "asyncAll");
+    }
+
+    /**
+     * The baseline - no interceptor involved.
+     */
+    @Benchmark
+    public Object baseline() throws Exception {
+        return none.proceed();
+    }
+
+    @Benchmark
+    public Object timeout() throws Exception {
+        return interceptor.interceptCommand(timeout);
+    }
+
+    @Benchmark
+    public Object retry() throws Exception {
+        return interceptor.interceptCommand(retry);
+    }
+
+    @Benchmark
+    public Object circuitBreaker() throws Exception {
+        return interceptor.interceptCommand(circuitBreaker);
+    }
+
+    @Benchmark
+    public Object bulkhead() throws Exception {
+        return interceptor.interceptCommand(bulkhead);
+    }
+
+    @Benchmark
+    public Object fallback() throws Exception {
+        return interceptor.interceptCommand(fallback);
+    }
+
+    @Benchmark
+    public Object fallbackTaken() throws Exception {
+        return interceptor.interceptCommand(fallbackTaken);
+    }
+
+    @Benchmark
+    public Object async() throws Exception {
+        return ((Future<?>) interceptor.interceptCommand(async)).get();
+    }
+
+    @Benchmark
+    public Object timeoutRetryCircuitBreaker() throws Exception {
+        return interceptor.interceptCommand(timeoutRetryCircuitBreaker);
+    }
+
+    @Benchmark
+    public Object all() throws Exception {
+        return interceptor.interceptCommand(all);
+    }
+
+    @Benchmark
+    public Object asyncAll() throws Exception {
+        return ((Future<?>) interceptor.interceptCommand(asyncAll)).get();
+    }
+
+}
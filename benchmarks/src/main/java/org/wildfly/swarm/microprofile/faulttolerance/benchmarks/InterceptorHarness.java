@@ -0,0 +1,63 @@
+/*
+ * Copyright 2017 Red Hat, Inc, and individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.wildfly.swarm.microprofile.faulttolerance.benchmarks;
+
+import java.lang.reflect.Field;
+
+import javax.inject.Inject;
+import javax.interceptor.InvocationContext;
+
+import org.wildfly.swarm.microprofile.faulttolerance.HystrixCommandInterceptor;
+import org.wildfly.swarm.microprofile.faulttolerance.HystrixExtension;
+
+/**
+ * Creates {@link HystrixCommandInterceptor} instances outside of a CDI container.
+ * <p>
+ * The {@link HystrixExtension} is instantiated directly, i.e. execution plans are prepared lazily on the first invocation and config properties are read
+ * from MicroProfile Config. There is no {@code BeanManager}, therefore operations which require it (e.g. {@code @Fallback} with a handler class) are not
+ * supported.
+ * </p>
+ */
+final class InterceptorHarness {
+
+    private InterceptorHarness() {
+    }
+
+    static HystrixCommandInterceptor newInterceptor() {
+        HystrixCommandInterceptor interceptor = new HystrixCommandInterceptor();
+        HystrixExtension extension = new HystrixExtension();
+        try {
+            for (Field field : HystrixCommandInterceptor.class.getDeclaredFields()) {
+                if (field.isAnnotationPresent(Inject.class) && HystrixExtension.class.equals(field.getType())) {
+                    field.setAccessible(true);
+                    field.set(interceptor, extension);
+                }
+            }
+        } catch (IllegalAccessException e) {
+            throw new IllegalStateException("Unable to initialize the interceptor", e);
+        }
+        return interceptor;
+    }
+
+    static InvocationContext invocation(Object target, String methodName) {
+        try {
+            return new BenchmarkInvocationContext(target, target.getClass().getMethod(methodName));
+        } catch (NoSuchMethodException e) {
+            throw new IllegalArgumentException("No such benchmark method: " + methodName, e);
+        }
+    }
+
+}
@@ -0,0 +1,252 @@
+/*
+ * Copyright 2017 Red Hat, Inc, and individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.wildfly.swarm.microprofile.faulttolerance;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+import org.eclipse.microprofile.faulttolerance.exceptions.BulkheadException;
+import org.eclipse.microprofile.faulttolerance.exceptions.CircuitBreakerOpenException;
+import org.eclipse.microprofile.faulttolerance.exceptions.TimeoutException;
+import org.jboss.logging.Logger;
+import org.wildfly.swarm.microprofile.faulttolerance.config.FaultToleranceOperation;
+
+/**
+ * Execution plan of an {@code @Asynchronous} operation whose policies are applied as continuations of the result of the business method, so that no thread is
+ * blocked while waiting for the result or for the next retry:
+ * <ul>
+ * <li>the business method is invoked on a thread provided by the engine, which is released as soon as the method returns</li>
+ * <li>{@code @Timeout} completes the result of an attempt exceptionally once the timeout expires; the stage returned by the business method is not cancelled.
+ * The result of an operation which returns {@link Future} is only available once the {@link Future} completes, i.e. the timeout covers the wait for it as
+ * well. The engine additionally applies the timeout to the invocation of the business method, so that the worker thread can be interrupted.</li>
+ * <li>{@code @CircuitBreaker} records the outcome of the stage; an attempt rejected by an open circuit is not retried</li>
+ * <li>{@code @Retry} schedules the next attempt once the delay elapses</li>
+ * <li>{@code @Fallback} is invoked once no more attempts are allowed, the result of the fallback is the result</li>
+ * </ul>
+ * <p>
+ * The timer and the scheduler threads are shared by all the operations of an engine, i.e. an expired timeout and a scheduled attempt are handed over to the
+ * executor of the plan so that a slow fallback or a dependent stage of the caller never runs on them.
+ * </p>
+ * <p>
+ * Engines use this plan for all operations which return {@link CompletionStage} and for operations which return {@link Future} and declare {@code @Retry}.
+ * </p>
+ */
+class AsyncExecutionPlan implements ExecutionPlan {
+
+    private static final Logger LOGGER = Logger.getLogger(AsyncExecutionPlan.class);
+
+    /**
+     * Invoke the business method on the given executor.
+     *
+     * @param executor
+     * @param ctx
+     * @return the stage completed once the stage returned by the business method completes
+     */
+    static CompletionStage<Object> invokeOn(Executor executor, ExecutionContextWithInvocationContext ctx) {
+        CompletableFuture<Object> result = new CompletableFuture<>();
+        try {
+            executor.execute(() -> {
+                try {
+                    pipe(asStage(ctx.proceed()), result);
+                } catch (Throwable e) {
+                    result.completeExceptionally(e);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            result.completeExceptionally(new BulkheadException(e));
+        }
+        return result;
+    }
+
+    @SuppressWarnings("unchecked")
+    static CompletionStage<Object> asStage(Object res) {
+        if (res instanceof CompletionStage) {
+            return (CompletionStage<Object>) res;
+        }
+        if (res instanceof Future) {
+            // The Future returned by an @Asynchronous method is usually complete once the method returns
+            CompletableFuture<Object> stage = new CompletableFuture<>();
+            try {
+                stage.complete(((Future<?>) res).get());
+            } catch (ExecutionException e) {
+                stage.completeExceptionally(e.getCause() != null ? e.getCause() : e);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                stage.completeExceptionally(e);
+            }
+            return stage;
+        }
+        throw new IllegalStateException("A result of an @Asynchronous call must be Future or CompletionStage: " + res);
+    }
+
+    static void pipe(CompletionStage<Object> stage, CompletableFuture<Object> target) {
+        stage.whenComplete((res, failure) -> {
+            if (failure != null) {
+                target.completeExceptionally(unwrap(failure));
+            } else {
+                target.complete(res);
+            }
+        });
+    }
+
+    private static Throwable unwrap(Throwable failure) {
+        return failure instanceof CompletionException && failure.getCause() != null ? failure.getCause() : failure;
+    }
+
+    /**
+     *
+     * @param metadata
+     * @param invoker invokes the business method asynchronously, see also {@link #invokeOn(Executor, ExecutionContextWithInvocationContext)}
+     * @param circuitBreaker may be {@code null}
+     * @param executor used for the continuations of an expired timeout and of a scheduled attempt
+     * @param scheduler used for retry delays
+     * @param timeoutTimer used for timeouts
+     */
+    AsyncExecutionPlan(CommandMetadata metadata, Function<ExecutionContextWithInvocationContext, CompletionStage<Object>> invoker,
+            SynchronousCircuitBreaker circuitBreaker, Executor executor, ScheduledExecutorService scheduler, HashedWheelTimer timeoutTimer) {
+        FaultToleranceOperation operation = metadata.getOperation();
+        boolean nonFallbackEnabled = metadata.isNonFallbackEnabled();
+        this.metadata = metadata;
+        this.method = metadata.getMethod();
+        this.invoker = invoker;
+        this.circuitBreaker = circuitBreaker;
+        this.executor = executor;
+        this.scheduler = scheduler;
+        this.timeoutTimer = timeoutTimer;
+        if (nonFallbackEnabled && operation.hasTimeout()) {
+            this.timeoutNanos = operation.getTimeout().getTimeoutNanos();
+        } else {
+            this.timeoutNanos = -1;
+        }
+    }
+
+    @Override
+    public Object execute(ExecutionContextWithInvocationContext ctx) throws Exception {
+        CompletableFuture<Object> result = new CompletableFuture<>();
+        attempt(ctx, metadata.newRetryContext(), result);
+        return result;
+    }
+
+    private void attempt(ExecutionContextWithInvocationContext ctx, RetryContext retryContext, CompletableFuture<Object> result) {
+        CompletionStage<Object> stage;
+        boolean shortCircuited = circuitBreaker != null && !circuitBreaker.attemptExecution();
+        if (shortCircuited) {
+            CompletableFuture<Object> open = new CompletableFuture<>();
+            open.completeExceptionally(new CircuitBreakerOpenException(method.getName()));
+            stage = open;
+        } else {
+            long start = System.nanoTime();
+            stage = withTimeout(invoker.apply(ctx), start);
+            if (circuitBreaker != null) {
+                stage = stage.whenComplete((res, failure) -> {
+                    if (failure != null) {
+                        circuitBreaker.executionFailed(unwrap(failure));
+                    } else {
+                        circuitBreaker.executionSucceeded();
+                    }
+                });
+            }
+        }
+        stage.whenComplete((res, failure) -> {
+            if (failure == null) {
+                if (retryContext != null) {
+                    retryContext.succeeded();
+                }
+                result.complete(res);
+                return;
+            }
+            Throwable cause = unwrap(failure);
+            // Like a short-circuited Hystrix command, an open circuit is not retried
+            if (retryContext != null && !shortCircuited && cause instanceof Exception) {
+                // Decrement the retry count for this attempt
+                retryContext.doRetry();
+                if (retryContext.shouldRetryOn((Exception) cause, System.nanoTime())) {
+                    // Always reschedule so that a sequence of failed attempts does not grow the stack
+                    scheduler.schedule(() -> dispatch(() -> attempt(ctx, retryContext, result)), retryContext.nextDelay(), TimeUnit.MILLISECONDS);
+                    return;
+                }
+            }
+            if (metadata.hasFallback()) {
+                LOGGER.tracef("Invoking fallback of %s", method);
+                try {
+                    pipe(asStage(metadata.invokeFallback(ctx)), result);
+                } catch (Throwable e) {
+                    result.completeExceptionally(e);
+                }
+                return;
+            }
+            result.completeExceptionally(cause);
+        });
+    }
+
+    private CompletionStage<Object> withTimeout(CompletionStage<Object> stage, long start) {
+        if (timeoutNanos < 0) {
+            return stage;
+        }
+        CompletableFuture<Object> timed = new CompletableFuture<>();
+        HashedWheelTimer.Timeout timeout = timeoutTimer.newTimeout(
+                () -> dispatch(() -> timed.completeExceptionally(new TimeoutException("Timeout exceeded: " + method.getName()))), timeoutNanos,
+                TimeUnit.NANOSECONDS);
+        stage.whenComplete((res, failure) -> {
+            timeout.cancel();
+            if (System.nanoTime() - start > timeoutNanos) {
+                // The timer fires up to one tick late, the elapsed time is exact
+                timed.completeExceptionally(new TimeoutException("Timeout exceeded: " + method.getName()));
+            } else if (failure != null) {
+                timed.completeExceptionally(unwrap(failure));
+            } else {
+                timed.complete(res);
+            }
+        });
+        return timed;
+    }
+
+    private void dispatch(Runnable task) {
+        try {
+            executor.execute(task);
+        } catch (RejectedExecutionException e) {
+            // The engine is shut down or the executor is saturated, complete the result anyway
+            task.run();
+        }
+    }
+
+    private final CommandMetadata metadata;
+
+    private final Method method;
+
+    private final Function<ExecutionContextWithInvocationContext, CompletionStage<Object>> invoker;
+
+    private final SynchronousCircuitBreaker circuitBreaker;
+
+    private final Executor executor;
+
+    private final ScheduledExecutorService scheduler;
+
+    private final HashedWheelTimer timeoutTimer;
+
+    // Negative value if no timeout is set
+    private final long timeoutNanos;
+
+}
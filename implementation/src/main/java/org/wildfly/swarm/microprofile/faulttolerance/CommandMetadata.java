@@ -0,0 +1,182 @@
+/*
+ * Copyright 2017 Red Hat, Inc, and individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.wildfly.swarm.microprofile.faulttolerance;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.security.PrivilegedActionException;
+
+import javax.enterprise.inject.spi.BeanManager;
+
+import org.eclipse.microprofile.faulttolerance.Fallback;
+import org.eclipse.microprofile.faulttolerance.exceptions.FaultToleranceException;
+import org.wildfly.swarm.microprofile.faulttolerance.config.FallbackConfig;
+import org.wildfly.swarm.microprofile.faulttolerance.config.FaultToleranceOperation;
+import org.wildfly.swarm.microprofile.faulttolerance.config.RetryConfig;
+
+/**
+ * Engine-independent metadata of a fault tolerance operation. Everything that does not depend on a particular invocation is resolved once.
+ *
+ * @see ExecutionEngine#prepare(CommandMetadata)
+ */
+public class CommandMetadata {
+
+    CommandMetadata(Method method, String methodKey, FaultToleranceOperation operation, BeanManager beanManager, boolean nonFallbackEnabled,
+            RetryBudget retryBudget) {
+        this.method = method;
+        this.methodKey = methodKey;
+        this.operation = operation;
+        this.nonFallbackEnabled = nonFallbackEnabled;
+        this.retryBudget = retryBudget;
+        this.retry = operation.hasRetry() ? operation.getRetry().getSnapshot() : null;
+
+        if (operation.hasFallback()) {
+            FallbackConfig fallbackConfig = operation.getFallback();
+            if (!fallbackConfig.get(FallbackConfig.VALUE).equals(Fallback.DEFAULT.class)) {
+                fallbackHandler = FallbackHandlerProvider.of(fallbackConfig.get(FallbackConfig.VALUE), beanManager, fallbackConfig.get(FallbackConfig.POOL_SIZE));
+                fallbackMethod = null;
+            } else {
+                fallbackHandler = null;
+                String fallbackMethodName = fallbackConfig.get(FallbackConfig.FALLBACK_METHOD);
+                if (!"".equals(fallbackMethodName)) {
+                    try {
+                        Method fallback = SecurityActions.getDeclaredMethod(method.getDeclaringClass(), fallbackMethodName, method.getParameterTypes());
+                        SecurityActions.setAccessible(fallback);
+                        fallbackMethod = toSpreadHandle(fallback);
+                    } catch (NoSuchMethodException | PrivilegedActionException | IllegalAccessException e) {
+                        throw new FaultToleranceException("Could not obtain fallback method", e);
+                    }
+                } else {
+                    fallbackMethod = null;
+                }
+            }
+        } else {
+            fallbackHandler = null;
+            fallbackMethod = null;
+        }
+    }
+
+    public Method getMethod() {
+        return method;
+    }
+
+    /**
+     * @return the unique key of the operation
+     */
+    public String getMethodKey() {
+        return methodKey;
+    }
+
+    public FaultToleranceOperation getOperation() {
+        return operation;
+    }
+
+    /**
+     * @return {@code false} if all fault tolerance policies except for {@link Fallback} should be disabled
+     */
+    public boolean isNonFallbackEnabled() {
+        return nonFallbackEnabled;
+    }
+
+    /**
+     *
+     * @return a new retry context or {@code null} if retry is not used
+     */
+    RetryContext newRetryContext() {
+        return nonFallbackEnabled && operation.hasRetry() ? new RetryContext(retry, retryBudget) : null;
+    }
+
+    public boolean hasFallback() {
+        return fallbackHandler != null || fallbackMethod != null;
+    }
+
+    /**
+     * Destroy the fallback handler instances kept for reuse. Invoked when the application is shut down or once the plan prepared with this metadata is
+     * replaced by a reloaded plan.
+     */
+    void dispose() {
+        if (fallbackHandler != null) {
+            fallbackHandler.dispose();
+        }
+    }
+
+    /**
+     * Invoke the fallback handler or fallback method. The result of an {@code @Asynchronous} operation is not unwrapped.
+     *
+     * @param ctx
+     * @return the fallback result
+     * @throws IllegalStateException if no fallback is defined
+     * @throws Exception any exception thrown by the fallback method, not wrapped
+     */
+    public Object invokeFallback(ExecutionContextWithInvocationContext ctx) throws Exception {
+        if (fallbackHandler != null) {
+            return fallbackHandler.handle(ctx);
+        } else if (fallbackMethod != null) {
+            try {
+                return (Object) fallbackMethod.invokeExact(ctx.getTarget(), ctx.getParameters());
+            } catch (Exception | Error e) {
+                throw e;
+            } catch (Throwable e) {
+                throw new FaultToleranceException("Error during fallback method invocation", e);
+            }
+        }
+        throw new IllegalStateException("No fallback defined for " + methodKey);
+    }
+
+    /**
+     *
+     * @param method
+     * @return the handle of type {@code (Object target, Object[] parameters)Object}
+     * @throws IllegalAccessException
+     */
+    private static MethodHandle toSpreadHandle(Method method) throws IllegalAccessException {
+        MethodHandle handle = MethodHandles.lookup().unreflect(method);
+        if (Modifier.isStatic(method.getModifiers())) {
+            // Ignore the target
+            handle = MethodHandles.dropArguments(handle, 0, Object.class);
+        }
+        int parameterCount = method.getParameterCount();
+        return handle.asType(MethodType.genericMethodType(parameterCount + 1)).asSpreader(Object[].class, parameterCount);
+    }
+
+    @Override
+    public String toString() {
+        return "CommandMetadata [method=" + methodKey + "]";
+    }
+
+    private final Method method;
+
+    private final String methodKey;
+
+    private final FaultToleranceOperation operation;
+
+    private final boolean nonFallbackEnabled;
+
+    // Null if retry is not used
+    private final RetryConfig.Snapshot retry;
+
+    // Null if the retries are not budgeted
+    private final RetryBudget retryBudget;
+
+    private final FallbackHandlerProvider fallbackHandler;
+
+    // Spread handle resolved once, see toSpreadHandle()
+    private final MethodHandle fallbackMethod;
+
+}
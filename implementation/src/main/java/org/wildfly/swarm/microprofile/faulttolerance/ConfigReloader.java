@@ -0,0 +1,195 @@
+/*
+ * Copyright 2017 Red Hat, Inc, and individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.wildfly.swarm.microprofile.faulttolerance;
+
+import java.lang.annotation.Annotation;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+import org.eclipse.microprofile.config.ConfigProvider;
+import org.eclipse.microprofile.faulttolerance.exceptions.FaultToleranceDefinitionException;
+import org.jboss.logging.Logger;
+import org.wildfly.swarm.microprofile.faulttolerance.config.FaultToleranceOperation;
+import org.wildfly.swarm.microprofile.faulttolerance.config.GenericConfig;
+
+/**
+ * Polls the config parameters of fault tolerance operations and replaces the execution plan of an operation whose parameters changed.
+ * <p>
+ * The interceptor invokes a plan which delegates to the current plan of the operation, i.e. the steady-state cost is a single volatile read. A new plan is
+ * only prepared if the parameter values differ from the last values seen and pass validation. The engine only rebuilds the state of the policies whose
+ * parameters changed, e.g. an open circuit breaker is kept if only {@code Retry/maxRetries} changed. An invalid change is logged and ignored.
+ * </p>
+ * <p>
+ * The reloader owns the {@link CommandMetadata} of the registered operations: the metadata of a replaced plan is disposed once the new plan is published,
+ * the metadata of a plan which could not be prepared is disposed right away, and the current metadata is disposed once the reloader is stopped.
+ * </p>
+ *
+ * @see GenericConfig#CONFIG_RELOAD_INTERVAL_KEY
+ * @see ExecutionEngine#reload(CommandMetadata, Set, java.util.function.Consumer)
+ */
+final class ConfigReloader {
+
+    private static final Logger LOGGER = Logger.getLogger(ConfigReloader.class);
+
+    // A reload in progress is given this time to complete when the reloader is stopped
+    private static final long STOP_TIMEOUT_MILLIS = 1000;
+
+    /**
+     *
+     * @param extension
+     * @return a new reloader or {@code null} if config parameters should not be reloaded
+     */
+    static ConfigReloader fromConfig(HystrixExtension extension) {
+        long intervalMillis = ConfigProvider.getConfig().getOptionalValue(GenericConfig.CONFIG_RELOAD_INTERVAL_KEY, Long.class).orElse(0L);
+        return intervalMillis > 0 ? new ConfigReloader(extension, intervalMillis) : null;
+    }
+
+    ConfigReloader(HystrixExtension extension, long intervalMillis) {
+        this.extension = extension;
+        this.plans = new ConcurrentHashMap<>();
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(new DaemonThreadFactory("ft-config-reload"));
+        scheduler.scheduleWithFixedDelay(this::reload, intervalMillis, intervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     *
+     * @param methodKey the unique key of the operation
+     * @param operation the validated operation
+     * @param metadataFactory creates new metadata of the given operation, the reloader disposes it
+     * @return the plan shared by all the interceptor instances
+     */
+    ExecutionPlan register(String methodKey, FaultToleranceOperation operation, Function<FaultToleranceOperation, CommandMetadata> metadataFactory) {
+        return plans.computeIfAbsent(methodKey, (key) -> new ReloadableExecutionPlan(key, operation, metadataFactory));
+    }
+
+    /**
+     * Stop polling and dispose the metadata of the current plans.
+     */
+    void stop() {
+        scheduler.shutdownNow();
+        try {
+            scheduler.awaitTermination(STOP_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        for (ReloadableExecutionPlan plan : plans.values()) {
+            plan.metadata.dispose();
+        }
+    }
+
+    void reload() {
+        for (ReloadableExecutionPlan plan : plans.values()) {
+            try {
+                plan.reload();
+            } catch (RuntimeException e) {
+                // Never cancel the periodic task
+                LOGGER.warnf(e, "Unable to reload the config parameters of %s", plan.methodKey);
+            }
+        }
+    }
+
+    private final HystrixExtension extension;
+
+    private final ConcurrentMap<String, ReloadableExecutionPlan> plans;
+
+    private final ScheduledExecutorService scheduler;
+
+    private class ReloadableExecutionPlan implements ExecutionPlan {
+
+        ReloadableExecutionPlan(String methodKey, FaultToleranceOperation operation, Function<FaultToleranceOperation, CommandMetadata> metadataFactory) {
+            this.methodKey = methodKey;
+            this.operation = operation;
+            this.metadataFactory = metadataFactory;
+            this.values = operation.getConfigValues();
+            CommandMetadata initialMetadata = metadataFactory.apply(operation);
+            try {
+                this.delegate = extension.getExecutionEngine().prepare(initialMetadata);
+            } catch (RuntimeException e) {
+                initialMetadata.dispose();
+                throw e;
+            }
+            this.metadata = initialMetadata;
+        }
+
+        @Override
+        public Object execute(ExecutionContextWithInvocationContext ctx) throws Exception {
+            return delegate.execute(ctx);
+        }
+
+        /**
+         * Only invoked by the reloader thread.
+         */
+        void reload() {
+            FaultToleranceOperation reloaded = operation.reload();
+            Set<Class<? extends Annotation>> changedPolicies = reloaded.getChangedPolicies(values);
+            if (changedPolicies.isEmpty()) {
+                return;
+            }
+            Map<String, Object> reloadedValues = reloaded.getConfigValues();
+            try {
+                reloaded.validate();
+            } catch (FaultToleranceDefinitionException e) {
+                // An invalid change is only reported once
+                values = reloadedValues;
+                LOGGER.warnf("Invalid config parameters of %s ignored: %s", methodKey, e.getMessage());
+                return;
+            }
+            // If the plan cannot be prepared, the values are not updated and the reload is retried
+            CommandMetadata reloadedMetadata = metadataFactory.apply(reloaded);
+            try {
+                extension.getExecutionEngine().reload(reloadedMetadata, changedPolicies, (plan) -> publish(plan, reloadedMetadata));
+            } catch (RuntimeException e) {
+                if (metadata != reloadedMetadata) {
+                    // The metadata was never published
+                    reloadedMetadata.dispose();
+                }
+                throw e;
+            }
+            values = reloadedValues;
+            LOGGER.infof("Config parameters of %s reloaded: %s", methodKey, changedPolicies);
+        }
+
+        private void publish(ExecutionPlan plan, CommandMetadata reloadedMetadata) {
+            delegate = plan;
+            CommandMetadata superseded = metadata;
+            metadata = reloadedMetadata;
+            // Invocations of the superseded plan which are still in progress may complete, a pooled handler in use is destroyed afterwards
+            superseded.dispose();
+        }
+
+        private final String methodKey;
+
+        private final FaultToleranceOperation operation;
+
+        private final Function<FaultToleranceOperation, CommandMetadata> metadataFactory;
+
+        // The values the current plan was prepared with, unless the last change was invalid
+        private Map<String, Object> values;
+
+        private volatile ExecutionPlan delegate;
+
+        // The metadata of the current plan
+        private volatile CommandMetadata metadata;
+
+    }
+
+}
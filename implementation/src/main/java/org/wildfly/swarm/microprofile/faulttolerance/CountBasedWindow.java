@@ -0,0 +1,96 @@
+/*
+ * Copyright 2017 Red Hat, Inc, and individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.wildfly.swarm.microprofile.faulttolerance;
+
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A fixed-size rolling window over the outcomes of the last N executions, backed by a primitive ring buffer.
+ * <p>
+ * Recording an outcome claims the next slot and swaps the new outcome in. The number of failures in the window is adjusted by the difference between the new
+ * and the evicted outcome, so both updates and queries are O(1) and nothing is allocated after construction.
+ * </p>
+ * <p>
+ * All the threads claim slots from a single cursor, i.e. every recorded outcome is an atomic increment of one shared counter, which is contended across cores
+ * under load. Striping the cursor, e.g. a per-thread probe into the ring, would remove the contention, but the window would then no longer cover exactly the
+ * last N executions, which is what the failure ratio of {@code @CircuitBreaker} is defined over. The increment never retries, unlike a CAS loop, and the
+ * failure counter is only updated when the evicted outcome differs from the new one.
+ * </p>
+ */
+final class CountBasedWindow implements RollingWindow {
+
+    private static final int SUCCESS = 0;
+
+    private static final int FAILURE = 1;
+
+    /**
+     *
+     * @param size the number of executions the window covers, must be positive
+     */
+    CountBasedWindow(int size) {
+        if (size < 1) {
+            throw new IllegalArgumentException("Window size must be positive: " + size);
+        }
+        this.outcomes = new AtomicIntegerArray(size);
+        this.size = size;
+        this.executions = new AtomicLong();
+        this.failures = new AtomicLong();
+    }
+
+    @Override
+    public void recordSuccess() {
+        record(SUCCESS);
+    }
+
+    @Override
+    public void recordFailure() {
+        record(FAILURE);
+    }
+
+    /**
+     *
+     * @return {@code true} if at least as many executions as the size of the window were recorded, i.e. the window is full
+     */
+    @Override
+    public boolean isVolumeThresholdReached() {
+        return executions.get() >= size;
+    }
+
+    @Override
+    public double getFailureRatio() {
+        long count = Math.min(executions.get(), size);
+        return count == 0 ? 0 : (double) failures.get() / count;
+    }
+
+    private void record(int outcome) {
+        int slot = (int) (executions.getAndIncrement() % size);
+        // Slots not written yet hold SUCCESS, i.e. nothing is subtracted until the window wraps around
+        int evicted = outcomes.getAndSet(slot, outcome);
+        if (outcome != evicted) {
+            failures.addAndGet(outcome - evicted);
+        }
+    }
+
+    private final AtomicIntegerArray outcomes;
+
+    private final int size;
+
+    private final AtomicLong executions;
+
+    private final AtomicLong failures;
+
+}
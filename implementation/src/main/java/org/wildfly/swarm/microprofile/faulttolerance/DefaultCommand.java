@@ -17,7 +17,7 @@
 package org.wildfly.swarm.microprofile.faulttolerance;
 
 import java.util.concurrent.Future;
-import java.util.function.Supplier;
+import java.util.function.Function;
 
 import com.netflix.hystrix.HystrixCommand;
 
@@ -35,14 +35,20 @@ public class DefaultCommand extends HystrixCommand<Object> {
      * @param retryContext
      * @param isAsync
      * @param hasCircuitBreaker
+     * @param timeout may be {@code null}
+     * @param interruptible {@code true} if the command is executed on a thread owned by the engine, i.e. the thread may be interrupted once the timeout
+     *        expires
      */
-    protected DefaultCommand(Setter setter, ExecutionContextWithInvocationContext ctx, Supplier<Object> fallback, RetryContext retryContext, boolean isAsync, boolean hasCircuitBreaker) {
+    protected DefaultCommand(Setter setter, ExecutionContextWithInvocationContext ctx, Function<ExecutionContextWithInvocationContext, Object> fallback,
+            RetryContext retryContext, boolean isAsync, boolean hasCircuitBreaker, ExecutionTimeout timeout, boolean interruptible) {
         super(setter);
         this.ctx = ctx;
         this.fallback = fallback;
         this.retryContext = retryContext;
         this.hasCircuitBreaker = hasCircuitBreaker;
         this.isAsync = isAsync;
+        this.timeout = timeout;
+        this.interruptible = interruptible;
     }
 
     @Override
@@ -88,6 +94,10 @@ public class DefaultCommand extends HystrixCommand<Object> {
     }
 
     private Object basicRun() throws Exception {
+        if (timeout != null) {
+            // Hystrix timeouts are disabled - every attempt is guarded separately
+            return timeout.invoke(() -> unwrap(ctx.proceed()), interruptible);
+        }
         Object res;
         res = ctx.proceed();
         return unwrap(res);
@@ -98,7 +108,7 @@ public class DefaultCommand extends HystrixCommand<Object> {
         if (fallback == null) {
             return super.getFallback();
         }
-        return unwrap(fallback.get());
+        return unwrap(fallback.apply(ctx));
     }
 
     @SuppressWarnings("rawtypes")
@@ -118,12 +128,17 @@ public class DefaultCommand extends HystrixCommand<Object> {
         }
     }
 
-    private final Supplier<Object> fallback;
+    private final Function<ExecutionContextWithInvocationContext, Object> fallback;
 
     private final ExecutionContextWithInvocationContext ctx;
 
     private final RetryContext retryContext;
 
+    // Null if no timeout is set or the timeout is applied elsewhere
+    private final ExecutionTimeout timeout;
+
+    private final boolean interruptible;
+
     private final boolean hasCircuitBreaker;
 
     private final boolean isAsync;
@@ -26,7 +26,7 @@ import org.eclipse.microprofile.faulttolerance.ExecutionContext;
 /**
  * @author Antoine Sabot-Durand
  */
-class ExecutionContextWithInvocationContext implements ExecutionContext {
+public class ExecutionContextWithInvocationContext implements ExecutionContext {
 
     public ExecutionContextWithInvocationContext(InvocationContext ic) {
         this.ic = ic;
@@ -50,5 +50,5 @@ class ExecutionContextWithInvocationContext implements ExecutionContext {
             return ic.proceed();
     }
 
-    private InvocationContext ic;
+    private final InvocationContext ic;
 }
@@ -0,0 +1,127 @@
+/*
+ * Copyright 2017 Red Hat, Inc, and individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.wildfly.swarm.microprofile.faulttolerance;
+
+import java.lang.annotation.Annotation;
+import java.util.Set;
+import java.util.function.Consumer;
+
+/**
+ * An execution engine applies the fault tolerance policies of an operation. There is exactly one engine per application.
+ * <p>
+ * The engine is selected with the {@link #CONFIG_KEY} config property. The value is either one of the built-in engines, i.e. {@link #HYSTRIX} (default) and
+ * {@link #NATIVE}, or the fully qualified name of a class which implements this interface and declares a public no-args constructor.
+ * </p>
+ *
+ * @see HystrixExtension#getExecutionEngine()
+ */
+public interface ExecutionEngine {
+
+    /**
+     * This config property key can be used to select the execution engine.
+     */
+    String CONFIG_KEY = "org_wildfly_swarm_microprofile_faulttolerance_executionEngine";
+
+    /**
+     * The default engine - every operation is executed as a Hystrix command.
+     */
+    String HYSTRIX = "hystrix";
+
+    /**
+     * The lightweight engine built directly on top of {@code java.util.concurrent}. There is no request log, no rolling-window metrics and no global plugin
+     * registry involved.
+     */
+    String NATIVE = "native";
+
+    /**
+     * This config property key can be used to execute {@code @Asynchronous} operations on virtual threads instead of platform thread pools. An asynchronous
+     * bulkhead is then enforced by semaphores. The feature is disabled by default and ignored if the JDK does not support virtual threads.
+     */
+    String VIRTUAL_THREADS_KEY = "org_wildfly_swarm_microprofile_faulttolerance_virtualThreads";
+
+    /**
+     * This config property key can be used to set the resolution of the timer which enforces {@code @Timeout}, in milliseconds. A timeout is detected at most
+     * one tick late. The default value is {@code 10}.
+     */
+    String TIMEOUT_TICK_KEY = "org_wildfly_swarm_microprofile_faulttolerance_timeoutTick";
+
+    /**
+     * Prepare the execution of the given operation. The returned plan is reused for all invocations of the operation and must be thread-safe.
+     *
+     * @param metadata
+     * @return the execution plan
+     */
+    ExecutionPlan prepare(CommandMetadata metadata);
+
+    /**
+     * The number of tasks waiting for a thread of an asynchronous bulkhead. The queue is bounded by {@code @Bulkhead.waitingTaskQueue}; once it is full, new
+     * invocations are rejected with {@link org.eclipse.microprofile.faulttolerance.exceptions.BulkheadException}.
+     *
+     * @param methodKey the unique key of the operation
+     * @return the current queue depth, or -1 if the operation is not executed on a dedicated thread pool
+     * @see CommandMetadata#getMethodKey()
+     */
+    default int getBulkheadQueueSize(String methodKey) {
+        return -1;
+    }
+
+    /**
+     * The number of invocations which were interrupted once the {@code @Timeout} elapsed and which stopped, i.e. completed exceptionally.
+     *
+     * @param methodKey the unique key of the operation
+     * @return the number of stopped invocations, or -1 if no timeout is applied to the operation
+     * @see CommandMetadata#getMethodKey()
+     * @see #getTimeoutNotStoppedCount(String)
+     */
+    default long getTimeoutStoppedCount(String methodKey) {
+        return -1;
+    }
+
+    /**
+     * The number of invocations which were interrupted once the {@code @Timeout} elapsed but ignored the interrupt, i.e. ran to completion. The thread of
+     * such an invocation was held after the timeout regardless.
+     *
+     * @param methodKey the unique key of the operation
+     * @return the number of invocations which were not stopped, or -1 if no timeout is applied to the operation
+     * @see CommandMetadata#getMethodKey()
+     * @see #getTimeoutStoppedCount(String)
+     */
+    default long getTimeoutNotStoppedCount(String methodKey) {
+        return -1;
+    }
+
+    /**
+     * Prepare the plan which replaces the plan of an operation whose config parameters changed and pass it to the given publisher. The state of the changed
+     * policies, e.g. the circuit breaker, is rebuilt with the new values; the state of the other policies is kept. The new plan is prepared before any state
+     * is swapped, and the state of the previous plan is only released once the new plan is published, so that executions of the previous plan which are
+     * already in progress are not affected. Invoked when the config parameters of the operation are reloaded.
+     *
+     * @param metadata the metadata of the reloaded operation
+     * @param changedPolicies the annotation types of the policies whose config parameters changed
+     * @param publisher replaces the current plan of the operation
+     * @see org.wildfly.swarm.microprofile.faulttolerance.config.GenericConfig#CONFIG_RELOAD_INTERVAL_KEY
+     */
+    default void reload(CommandMetadata metadata, Set<Class<? extends Annotation>> changedPolicies, Consumer<ExecutionPlan> publisher) {
+        publisher.accept(prepare(metadata));
+    }
+
+    /**
+     * Release all the resources held by the engine, e.g. thread pools. Invoked when the application is shut down.
+     */
+    default void shutdown() {
+    }
+
+}
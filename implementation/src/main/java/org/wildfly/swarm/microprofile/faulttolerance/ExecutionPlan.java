@@ -0,0 +1,34 @@
+/*
+ * Copyright 2017 Red Hat, Inc, and individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.wildfly.swarm.microprofile.faulttolerance;
+
+/**
+ * The execution plan of a fault tolerance operation.
+ *
+ * @see ExecutionEngine#prepare(CommandMetadata)
+ */
+@FunctionalInterface
+public interface ExecutionPlan {
+
+    /**
+     *
+     * @param ctx
+     * @return the result of the invocation, a {@link java.util.concurrent.Future} for an {@code @Asynchronous} operation
+     * @throws Exception
+     */
+    Object execute(ExecutionContextWithInvocationContext ctx) throws Exception;
+
+}
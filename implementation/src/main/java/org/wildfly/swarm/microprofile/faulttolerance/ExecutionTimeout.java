@@ -0,0 +1,158 @@
+/*
+ * Copyright 2017 Red Hat, Inc, and individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.wildfly.swarm.microprofile.faulttolerance;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.eclipse.microprofile.faulttolerance.exceptions.TimeoutException;
+import org.jboss.logging.Logger;
+import org.wildfly.swarm.microprofile.faulttolerance.config.TimeoutConfig;
+
+/**
+ * Enforces the {@code @Timeout} of a single operation.
+ * <p>
+ * If the invocation runs on a thread owned by the engine, e.g. a worker thread of an {@code @Asynchronous} operation, a {@link TimeoutWatchdog} registered
+ * with the {@link HashedWheelTimer} interrupts the thread once the timeout elapses. By default, the caller thread of a synchronous operation is never
+ * interrupted - the timeout is detected once the invocation completes, which does not require any registration at all. If {@link TimeoutConfig#INTERRUPT} is
+ * enabled, the caller thread is interrupted as well.
+ * </p>
+ * <p>
+ * The timeout has nanosecond precision. Whether an invocation timed out is always decided by the elapsed time, the watchdog only stops the work and may fire
+ * up to one tick of the timer late.
+ * </p>
+ * <p>
+ * The business code may ignore an interrupt. Therefore, every interrupted invocation is recorded either as stopped, i.e. it completed exceptionally, or as not
+ * stopped, i.e. it ran to completion regardless of the interrupt.
+ * </p>
+ */
+final class ExecutionTimeout {
+
+    private static final Logger LOGGER = Logger.getLogger(ExecutionTimeout.class);
+
+    /**
+     *
+     * @param methodName
+     * @param config
+     * @param timer
+     */
+    ExecutionTimeout(String methodName, TimeoutConfig config, HashedWheelTimer timer) {
+        this.methodName = methodName;
+        this.timeoutNanos = config.getTimeoutNanos();
+        this.interruptCaller = config.get(TimeoutConfig.INTERRUPT);
+        this.timer = timer;
+        this.stopped = new LongAdder();
+        this.notStopped = new LongAdder();
+    }
+
+    /**
+     *
+     * @param invocation
+     * @param interruptible {@code true} if the current thread is owned by the engine and may be interrupted
+     * @return the result of the invocation
+     * @throws TimeoutException if the timeout elapsed
+     * @throws Exception if the invocation failed
+     */
+    Object invoke(Callable<Object> invocation, boolean interruptible) throws Exception {
+        if (interruptible || interruptCaller) {
+            return invokeWithWatchdog(invocation);
+        }
+        long start = System.nanoTime();
+        Object res;
+        try {
+            res = invocation.call();
+        } catch (Exception e) {
+            if (System.nanoTime() - start > timeoutNanos) {
+                throw new TimeoutException(e);
+            }
+            throw e;
+        }
+        if (System.nanoTime() - start > timeoutNanos) {
+            throw new TimeoutException("Timeout exceeded: " + methodName);
+        }
+        return res;
+    }
+
+    /**
+     *
+     * @return the number of interrupted invocations which completed exceptionally
+     */
+    long getStoppedCount() {
+        return stopped.sum();
+    }
+
+    /**
+     *
+     * @return the number of interrupted invocations which ran to completion regardless of the interrupt
+     */
+    long getNotStoppedCount() {
+        return notStopped.sum();
+    }
+
+    private Object invokeWithWatchdog(Callable<Object> invocation) throws Exception {
+        long start = System.nanoTime();
+        TimeoutWatchdog watchdog = new TimeoutWatchdog(Thread.currentThread());
+        HashedWheelTimer.Timeout timeout = timer.newTimeout(watchdog, timeoutNanos, TimeUnit.NANOSECONDS);
+        Object res = null;
+        Exception failure = null;
+        boolean timedOut;
+        try {
+            res = invocation.call();
+        } catch (Exception e) {
+            failure = e;
+        } finally {
+            // Also if the invocation throws an Error, otherwise the interrupt would leak into subsequent work of the thread
+            timeout.cancel();
+            timedOut = watchdog.complete();
+        }
+        if (timedOut) {
+            if (failure != null) {
+                stopped.increment();
+                LOGGER.debugf("Interrupted invocation of %s stopped %s ms after the timeout", methodName, overrunMillis(start));
+                throw new TimeoutException(failure);
+            }
+            notStopped.increment();
+            LOGGER.debugf("Interrupted invocation of %s ignored the interrupt and completed %s ms after the timeout", methodName, overrunMillis(start));
+            throw new TimeoutException("Timeout exceeded: " + methodName);
+        }
+        if (failure != null) {
+            throw failure;
+        }
+        if (System.nanoTime() - start > timeoutNanos) {
+            // The watchdog fires up to one tick late, the elapsed time is exact
+            throw new TimeoutException("Timeout exceeded: " + methodName);
+        }
+        return res;
+    }
+
+    private long overrunMillis(long start) {
+        return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start - timeoutNanos);
+    }
+
+    private final String methodName;
+
+    private final long timeoutNanos;
+
+    private final boolean interruptCaller;
+
+    private final HashedWheelTimer timer;
+
+    private final LongAdder stopped;
+
+    private final LongAdder notStopped;
+
+}
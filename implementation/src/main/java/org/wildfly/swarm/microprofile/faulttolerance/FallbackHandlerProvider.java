@@ -0,0 +1,169 @@
+/*
+ * Copyright 2017 Red Hat, Inc, and individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.wildfly.swarm.microprofile.faulttolerance;
+
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+import javax.enterprise.inject.AmbiguousResolutionException;
+import javax.enterprise.inject.spi.Bean;
+import javax.enterprise.inject.spi.BeanManager;
+import javax.enterprise.inject.spi.Unmanaged;
+
+import org.eclipse.microprofile.faulttolerance.FallbackHandler;
+import org.wildfly.swarm.microprofile.faulttolerance.config.FallbackConfig;
+
+/**
+ * Provides the {@link FallbackHandler} instances of an operation:
+ * <ul>
+ * <li>if the handler class is a bean with a normal scope, e.g. {@code @ApplicationScoped}, the contextual reference is resolved once and reused for all
+ * invocations</li>
+ * <li>otherwise, a new instance is created for every invocation and destroyed afterwards, unless pooling is enabled with {@link FallbackConfig#POOL_SIZE}; a
+ * pooled instance services one invocation at a time</li>
+ * </ul>
+ */
+abstract class FallbackHandlerProvider {
+
+    /**
+     *
+     * @param handlerClass
+     * @param beanManager
+     * @param poolSize the maximum number of idle instances kept for reuse, {@code 0} means no pooling
+     * @return the provider
+     */
+    static FallbackHandlerProvider of(Class<FallbackHandler<?>> handlerClass, BeanManager beanManager, int poolSize) {
+        Bean<?> bean = resolveBean(handlerClass, beanManager);
+        if (bean != null && beanManager.isNormalScope(bean.getScope())) {
+            // A client proxy is thread-safe
+            FallbackHandler<?> reference = (FallbackHandler<?>) beanManager.getReference(bean, handlerClass, beanManager.createCreationalContext(bean));
+            return new Contextual(reference);
+        }
+        Unmanaged<FallbackHandler<?>> unmanaged = new Unmanaged<>(beanManager, handlerClass);
+        return poolSize > 0 ? new Pooled(unmanaged, poolSize) : new PerInvocation(unmanaged);
+    }
+
+    /**
+     *
+     * @param ctx
+     * @return the fallback result
+     */
+    abstract Object handle(ExecutionContextWithInvocationContext ctx);
+
+    /**
+     * Destroy the instances kept for reuse, if any. An instance which is still servicing an invocation is destroyed once the invocation completes.
+     */
+    void dispose() {
+    }
+
+    private static Bean<?> resolveBean(Class<?> handlerClass, BeanManager beanManager) {
+        Set<Bean<?>> beans = beanManager.getBeans(handlerClass);
+        if (beans.isEmpty()) {
+            return null;
+        }
+        try {
+            Bean<?> bean = beanManager.resolve(beans);
+            // E.g. a specializing or alternative subclass - keep the instance of the declared class
+            return bean != null && handlerClass.equals(bean.getBeanClass()) ? bean : null;
+        } catch (AmbiguousResolutionException e) {
+            return null;
+        }
+    }
+
+    private static final class Contextual extends FallbackHandlerProvider {
+
+        Contextual(FallbackHandler<?> handler) {
+            this.handler = handler;
+        }
+
+        @Override
+        Object handle(ExecutionContextWithInvocationContext ctx) {
+            return handler.handle(ctx);
+        }
+
+        private final FallbackHandler<?> handler;
+
+    }
+
+    private static final class PerInvocation extends FallbackHandlerProvider {
+
+        PerInvocation(Unmanaged<FallbackHandler<?>> unmanaged) {
+            this.unmanaged = unmanaged;
+        }
+
+        @Override
+        Object handle(ExecutionContextWithInvocationContext ctx) {
+            Unmanaged.UnmanagedInstance<FallbackHandler<?>> unmanagedInstance = unmanaged.newInstance();
+            FallbackHandler<?> handler = unmanagedInstance.produce().inject().postConstruct().get();
+            try {
+                return handler.handle(ctx);
+            } finally {
+                // The instance exists to service a single invocation only
+                unmanagedInstance.preDestroy().dispose();
+            }
+        }
+
+        private final Unmanaged<FallbackHandler<?>> unmanaged;
+
+    }
+
+    private static final class Pooled extends FallbackHandlerProvider {
+
+        Pooled(Unmanaged<FallbackHandler<?>> unmanaged, int poolSize) {
+            this.unmanaged = unmanaged;
+            this.idle = new ArrayBlockingQueue<>(poolSize);
+        }
+
+        @Override
+        Object handle(ExecutionContextWithInvocationContext ctx) {
+            Unmanaged.UnmanagedInstance<FallbackHandler<?>> unmanagedInstance = idle.poll();
+            if (unmanagedInstance == null) {
+                unmanagedInstance = unmanaged.newInstance().produce().inject().postConstruct();
+            }
+            try {
+                return unmanagedInstance.get().handle(ctx);
+            } finally {
+                if (!idle.offer(unmanagedInstance)) {
+                    // The pool is full
+                    unmanagedInstance.preDestroy().dispose();
+                } else if (disposed) {
+                    destroyIdle();
+                }
+            }
+        }
+
+        @Override
+        void dispose() {
+            disposed = true;
+            destroyIdle();
+        }
+
+        private void destroyIdle() {
+            Unmanaged.UnmanagedInstance<FallbackHandler<?>> unmanagedInstance;
+            while ((unmanagedInstance = idle.poll()) != null) {
+                unmanagedInstance.preDestroy().dispose();
+            }
+        }
+
+        private final Unmanaged<FallbackHandler<?>> unmanaged;
+
+        private final BlockingQueue<Unmanaged.UnmanagedInstance<FallbackHandler<?>>> idle;
+
+        private volatile boolean disposed;
+
+    }
+
+}
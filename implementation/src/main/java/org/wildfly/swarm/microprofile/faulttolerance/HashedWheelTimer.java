@@ -0,0 +1,311 @@
+/*
+ * Copyright 2017 Red Hat, Inc, and individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.wildfly.swarm.microprofile.faulttolerance;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+import java.util.concurrent.locks.LockSupport;
+
+import org.eclipse.microprofile.config.ConfigProvider;
+import org.jboss.logging.Logger;
+
+/**
+ * A timer optimized for timeouts, i.e. for tasks which are almost always cancelled before they expire.
+ * <p>
+ * Registration and cancellation are O(1) and lock-free: both only enqueue the timeout. A single worker thread advances the wheel once per tick, moves new
+ * timeouts into the bucket of their deadline, unlinks cancelled timeouts and runs the expired ones. A timeout therefore expires at most one tick late, never
+ * early. Expired tasks are executed on the worker thread and must not block.
+ * </p>
+ *
+ * @see ExecutionEngine#TIMEOUT_TICK_KEY
+ */
+final class HashedWheelTimer {
+
+    private static final Logger LOGGER = Logger.getLogger(HashedWheelTimer.class);
+
+    static final long DEFAULT_TICK_MILLIS = 10;
+
+    static final int DEFAULT_WHEEL_SIZE = 512;
+
+    /**
+     * Limits the number of timeouts moved to the wheel per tick, so that a burst of registrations does not delay expirations.
+     */
+    private static final int MAX_TRANSFERS_PER_TICK = 100000;
+
+    /**
+     *
+     * @param threadName
+     * @return a new timer with the tick configured by {@link ExecutionEngine#TIMEOUT_TICK_KEY}
+     */
+    static HashedWheelTimer fromConfig(String threadName) {
+        long tickMillis = ConfigProvider.getConfig().getOptionalValue(ExecutionEngine.TIMEOUT_TICK_KEY, Long.class).orElse(DEFAULT_TICK_MILLIS);
+        if (tickMillis < 1) {
+            LOGGER.warnf("Invalid timeout tick %s ms - using %s ms", tickMillis, DEFAULT_TICK_MILLIS);
+            tickMillis = DEFAULT_TICK_MILLIS;
+        }
+        return new HashedWheelTimer(threadName, tickMillis, TimeUnit.MILLISECONDS, DEFAULT_WHEEL_SIZE);
+    }
+
+    /**
+     *
+     * @param threadName
+     * @param tick the resolution of the timer
+     * @param unit
+     * @param wheelSize the number of buckets, rounded up to a power of two
+     */
+    HashedWheelTimer(String threadName, long tick, TimeUnit unit, int wheelSize) {
+        if (tick < 1 || wheelSize < 1) {
+            throw new IllegalArgumentException("Tick and wheel size must be positive");
+        }
+        int size = Integer.highestOneBit(wheelSize - 1) << 1;
+        this.wheel = new Bucket[Math.max(1, size)];
+        for (int i = 0; i < wheel.length; i++) {
+            wheel[i] = new Bucket();
+        }
+        this.mask = wheel.length - 1;
+        this.tickNanos = unit.toNanos(tick);
+        this.pending = new ConcurrentLinkedQueue<>();
+        this.cancelled = new ConcurrentLinkedQueue<>();
+        this.startTime = System.nanoTime();
+        this.worker = new DaemonThreadFactory(threadName).newThread(this::run);
+        this.worker.start();
+    }
+
+    /**
+     *
+     * @param task executed on the worker thread once the delay elapses, unless cancelled
+     * @param delay
+     * @param unit
+     * @return the timeout handle
+     */
+    Timeout newTimeout(Runnable task, long delay, TimeUnit unit) {
+        if (stopped) {
+            throw new IllegalStateException("Timer already stopped");
+        }
+        // Deadlines are relative to the start time so that the arithmetic does not overflow
+        long deadline = System.nanoTime() - startTime + Math.max(0, unit.toNanos(delay));
+        if (deadline < 0) {
+            // Overflow - the timeout never expires in practice
+            deadline = Long.MAX_VALUE;
+        }
+        Timeout timeout = new Timeout(this, task, deadline);
+        pending.add(timeout);
+        return timeout;
+    }
+
+    void stop() {
+        stopped = true;
+        worker.interrupt();
+    }
+
+    private void run() {
+        long tick = 0;
+        while (!stopped) {
+            long deadline = waitForNextTick(tick);
+            if (deadline < 0) {
+                break;
+            }
+            unlinkCancelled();
+            transferPending(tick);
+            wheel[(int) (tick & mask)].expire(deadline);
+            tick++;
+        }
+        LOGGER.debugf("Timer %s stopped", worker.getName());
+    }
+
+    /**
+     *
+     * @param tick
+     * @return the deadline of the tick, relative to the start time, or -1 if stopped
+     */
+    private long waitForNextTick(long tick) {
+        long deadline = tickNanos * (tick + 1);
+        while (true) {
+            long sleep = deadline - (System.nanoTime() - startTime);
+            if (sleep <= 0) {
+                return deadline;
+            }
+            LockSupport.parkNanos(this, sleep);
+            if (stopped) {
+                return -1;
+            }
+        }
+    }
+
+    private void unlinkCancelled() {
+        Timeout timeout;
+        while ((timeout = cancelled.poll()) != null) {
+            // A timeout cancelled before it was transferred is not linked yet
+            if (timeout.bucket != null) {
+                timeout.bucket.remove(timeout);
+            }
+        }
+    }
+
+    private void transferPending(long tick) {
+        for (int i = 0; i < MAX_TRANSFERS_PER_TICK; i++) {
+            Timeout timeout = pending.poll();
+            if (timeout == null) {
+                return;
+            }
+            if (timeout.state == Timeout.CANCELLED) {
+                continue;
+            }
+            long ticks = timeout.deadline / tickNanos;
+            timeout.remainingRounds = (ticks - tick) / wheel.length;
+            // A deadline which already passed expires with the current tick
+            wheel[(int) (Math.max(ticks, tick) & mask)].add(timeout);
+        }
+    }
+
+    private final Bucket[] wheel;
+
+    private final int mask;
+
+    private final long tickNanos;
+
+    private final long startTime;
+
+    private final Queue<Timeout> pending;
+
+    private final Queue<Timeout> cancelled;
+
+    private final Thread worker;
+
+    private volatile boolean stopped;
+
+    /**
+     * A handle of a registered task.
+     */
+    static final class Timeout {
+
+        private static final int PENDING = 0;
+
+        private static final int CANCELLED = 1;
+
+        private static final int EXPIRED = 2;
+
+        private static final AtomicIntegerFieldUpdater<Timeout> STATE = AtomicIntegerFieldUpdater.newUpdater(Timeout.class, "state");
+
+        private Timeout(HashedWheelTimer timer, Runnable task, long deadline) {
+            this.timer = timer;
+            this.task = task;
+            this.deadline = deadline;
+        }
+
+        /**
+         *
+         * @return {@code true} if the task was cancelled, {@code false} if it already expired or was cancelled before
+         */
+        boolean cancel() {
+            if (!STATE.compareAndSet(this, PENDING, CANCELLED)) {
+                return false;
+            }
+            // The worker unlinks the timeout on the next tick
+            timer.cancelled.add(this);
+            return true;
+        }
+
+        private void expire() {
+            if (!STATE.compareAndSet(this, PENDING, EXPIRED)) {
+                return;
+            }
+            try {
+                task.run();
+            } catch (Throwable e) {
+                LOGGER.warnf(e, "Timeout task %s failed", task);
+            }
+        }
+
+        private final HashedWheelTimer timer;
+
+        private final Runnable task;
+
+        // Relative to the start time of the timer
+        private final long deadline;
+
+        private volatile int state;
+
+        // The following fields are only accessed by the worker thread
+
+        private long remainingRounds;
+
+        private Bucket bucket;
+
+        private Timeout next;
+
+        private Timeout prev;
+
+    }
+
+    /**
+     * A doubly-linked list of timeouts, only accessed by the worker thread.
+     */
+    private static final class Bucket {
+
+        void add(Timeout timeout) {
+            timeout.bucket = this;
+            if (head == null) {
+                head = timeout;
+                tail = timeout;
+            } else {
+                tail.next = timeout;
+                timeout.prev = tail;
+                tail = timeout;
+            }
+        }
+
+        void remove(Timeout timeout) {
+            if (timeout.prev != null) {
+                timeout.prev.next = timeout.next;
+            } else {
+                head = timeout.next;
+            }
+            if (timeout.next != null) {
+                timeout.next.prev = timeout.prev;
+            } else {
+                tail = timeout.prev;
+            }
+            timeout.bucket = null;
+            timeout.next = null;
+            timeout.prev = null;
+        }
+
+        void expire(long deadline) {
+            Timeout timeout = head;
+            while (timeout != null) {
+                Timeout next = timeout.next;
+                if (timeout.state == Timeout.CANCELLED) {
+                    remove(timeout);
+                } else if (timeout.remainingRounds <= 0 && timeout.deadline <= deadline) {
+                    remove(timeout);
+                    timeout.expire();
+                } else {
+                    timeout.remainingRounds--;
+                }
+                timeout = next;
+            }
+        }
+
+        private Timeout head;
+
+        private Timeout tail;
+
+    }
+
+}
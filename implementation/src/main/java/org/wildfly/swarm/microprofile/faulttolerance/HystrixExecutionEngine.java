@@ -0,0 +1,525 @@
+/*
+ * Copyright 2017 Red Hat, Inc, and individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.wildfly.swarm.microprofile.faulttolerance;
+
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.time.Duration;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+import org.eclipse.microprofile.config.ConfigProvider;
+import org.eclipse.microprofile.faulttolerance.Bulkhead;
+import org.eclipse.microprofile.faulttolerance.CircuitBreaker;
+import org.eclipse.microprofile.faulttolerance.Timeout;
+import org.eclipse.microprofile.faulttolerance.exceptions.BulkheadException;
+import org.eclipse.microprofile.faulttolerance.exceptions.CircuitBreakerOpenException;
+import org.eclipse.microprofile.faulttolerance.exceptions.FaultToleranceException;
+import org.eclipse.microprofile.faulttolerance.exceptions.TimeoutException;
+import org.jboss.logging.Logger;
+import org.wildfly.swarm.microprofile.faulttolerance.config.BulkheadConfig;
+import org.wildfly.swarm.microprofile.faulttolerance.config.CircuitBreakerConfig;
+import org.wildfly.swarm.microprofile.faulttolerance.config.FaultToleranceOperation;
+
+import com.netflix.hystrix.HystrixCircuitBreaker;
+import com.netflix.hystrix.HystrixCommand.Setter;
+import com.netflix.hystrix.HystrixCommandGroupKey;
+import com.netflix.hystrix.HystrixCommandKey;
+import com.netflix.hystrix.HystrixCommandProperties;
+import com.netflix.hystrix.HystrixThreadPoolKey;
+import com.netflix.hystrix.HystrixThreadPoolMetrics;
+import com.netflix.hystrix.HystrixThreadPoolProperties;
+import com.netflix.hystrix.exception.HystrixRuntimeException;
+
+/**
+ * Every fault tolerance operation is executed as a Hystrix command.
+ * <p>
+ * For an {@code @Asynchronous} operation which returns {@link CompletionStage}, or which returns {@link java.util.concurrent.Future} and declares
+ * {@code @Retry}, the command only invokes the business method on the thread pool of the operation. Circuit breaker, retry, fallback and the timeout of the
+ * result are applied by {@link AsyncExecutionPlan}, i.e. no pool thread is held during a retry delay. The {@link SynchronousCircuitBreaker}
+ * is used even if disabled by {@link HystrixCommandInterceptor#SYNC_CIRCUIT_BREAKER_KEY}.
+ * </p>
+ * <p>
+ * If {@link ExecutionEngine#VIRTUAL_THREADS_KEY} is enabled, an {@code @Asynchronous} operation is executed on a virtual thread as a SEMAPHORE-isolated
+ * command, i.e. Hystrix thread pools are not used at all. An asynchronous bulkhead is a {@link SemaphoreBulkheadExecutor}.
+ * </p>
+ * <p>
+ * Hystrix timeouts are disabled. {@code @Timeout} is an {@link ExecutionTimeout} backed by a {@link HashedWheelTimer} and applied to every attempt inside the
+ * command; the thread of an {@code @Asynchronous} operation is interrupted, a synchronous timeout is detected once the invocation completes unless
+ * {@link org.wildfly.swarm.microprofile.faulttolerance.config.TimeoutConfig#INTERRUPT} is enabled.
+ * </p>
+ *
+ * @see ExecutionEngine#HYSTRIX
+ */
+class HystrixExecutionEngine implements ExecutionEngine {
+
+    private static final Logger LOGGER = Logger.getLogger(HystrixExecutionEngine.class);
+
+    @SuppressWarnings("unchecked")
+    HystrixExecutionEngine() {
+        this.syncCircuitBreakerEnabled = ConfigProvider.getConfig().getOptionalValue(HystrixCommandInterceptor.SYNC_CIRCUIT_BREAKER_KEY, Boolean.class)
+                .orElse(true);
+        // WORKAROUND: Hystrix does not allow to use custom HystrixCircuitBreaker impl
+        // See also https://github.com/Netflix/Hystrix/issues/9
+        try {
+            Field field = SecurityActions.getDeclaredField(com.netflix.hystrix.HystrixCircuitBreaker.Factory.class, "circuitBreakersByCommand");
+            SecurityActions.setAccessible(field);
+            this.circuitBreakers = (ConcurrentHashMap<String, HystrixCircuitBreaker>) field.get(null);
+        } catch (Exception e) {
+            throw new IllegalStateException("Could not obtain reference to com.netflix.hystrix.HystrixCircuitBreaker.Factory.circuitBreakersByCommand");
+        }
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(new DaemonThreadFactory("ft-scheduler"));
+        this.timeoutTimer = HashedWheelTimer.fromConfig("ft-timeout");
+        this.virtualThreadExecutor = VirtualThreads.newExecutorIfEnabled();
+        this.continuationExecutor = virtualThreadExecutor != null ? virtualThreadExecutor : Executors.newCachedThreadPool(new DaemonThreadFactory("ft-async"));
+        this.semaphoreBulkheads = new ConcurrentHashMap<>();
+        this.timeouts = new ConcurrentHashMap<>();
+    }
+
+    @Override
+    public ExecutionPlan prepare(CommandMetadata metadata) {
+        String methodKey = metadata.getMethodKey();
+        SynchronousCircuitBreaker circuitBreaker = usesSynchronousCircuitBreaker(metadata)
+                ? getSynchronousCircuitBreaker(methodKey, metadata.getOperation().getCircuitBreaker())
+                : null;
+        SemaphoreBulkheadExecutor semaphoreBulkhead = usesSemaphoreBulkhead(metadata)
+                ? semaphoreBulkheads.computeIfAbsent(methodKey, (key) -> createSemaphoreBulkhead(metadata))
+                : null;
+        ExecutionTimeout timeout = timeouts.computeIfAbsent(methodKey, (key) -> createTimeout(metadata));
+        return prepare(metadata, circuitBreaker, semaphoreBulkhead, timeout);
+    }
+
+    /**
+     * The synchronous circuit breaker and the bulkhead of an operation executed on virtual threads are replaced if their parameters changed. Hystrix caches
+     * the command and thread pool properties per command key, i.e. Hystrix bulkheads keep their initial size.
+     */
+    @Override
+    public void reload(CommandMetadata metadata, Set<Class<? extends Annotation>> changedPolicies, Consumer<ExecutionPlan> publisher) {
+        String methodKey = metadata.getMethodKey();
+        SynchronousCircuitBreaker circuitBreaker = null;
+        if (usesSynchronousCircuitBreaker(metadata)) {
+            circuitBreaker = changedPolicies.contains(CircuitBreaker.class) ? new SynchronousCircuitBreaker(metadata.getOperation().getCircuitBreaker())
+                    : getSynchronousCircuitBreaker(methodKey, metadata.getOperation().getCircuitBreaker());
+        }
+        SemaphoreBulkheadExecutor semaphoreBulkhead = null;
+        if (usesSemaphoreBulkhead(metadata)) {
+            semaphoreBulkhead = changedPolicies.contains(Bulkhead.class) ? createSemaphoreBulkhead(metadata)
+                    : semaphoreBulkheads.computeIfAbsent(methodKey, (key) -> createSemaphoreBulkhead(metadata));
+        }
+        ExecutionTimeout timeout = changedPolicies.contains(Timeout.class) ? createTimeout(metadata)
+                : timeouts.computeIfAbsent(methodKey, (key) -> createTimeout(metadata));
+        ExecutionPlan plan = prepare(metadata, circuitBreaker, semaphoreBulkhead, timeout);
+        if (circuitBreaker != null) {
+            // Never remove the key, otherwise a command of the previous plan would register a Hystrix circuit breaker
+            circuitBreakers.put(methodKey, circuitBreaker);
+        }
+        if (semaphoreBulkhead != null) {
+            semaphoreBulkheads.put(methodKey, semaphoreBulkhead);
+        }
+        if (timeout != null) {
+            timeouts.put(methodKey, timeout);
+        } else {
+            timeouts.remove(methodKey);
+        }
+        publisher.accept(plan);
+    }
+
+    @Override
+    public void shutdown() {
+        scheduler.shutdownNow();
+        timeoutTimer.stop();
+        continuationExecutor.shutdownNow();
+    }
+
+    @Override
+    public int getBulkheadQueueSize(String methodKey) {
+        SemaphoreBulkheadExecutor semaphoreBulkhead = semaphoreBulkheads.get(methodKey);
+        if (semaphoreBulkhead != null) {
+            return semaphoreBulkhead.getQueueSize();
+        }
+        // Metrics are only available once the thread pool of an asynchronous operation is initialized
+        HystrixThreadPoolMetrics metrics = HystrixThreadPoolMetrics.getInstance(HystrixThreadPoolKey.Factory.asKey(methodKey));
+        return metrics != null ? metrics.getCurrentQueueSize().intValue() : -1;
+    }
+
+    @Override
+    public long getTimeoutStoppedCount(String methodKey) {
+        ExecutionTimeout timeout = timeouts.get(methodKey);
+        return timeout != null ? timeout.getStoppedCount() : -1;
+    }
+
+    @Override
+    public long getTimeoutNotStoppedCount(String methodKey) {
+        ExecutionTimeout timeout = timeouts.get(methodKey);
+        return timeout != null ? timeout.getNotStoppedCount() : -1;
+    }
+
+    private boolean usesContinuations(FaultToleranceOperation operation, boolean nonFallBackEnable) {
+        // A virtual thread may simply sleep during a retry delay
+        return operation.returnsCompletionStage() || (operation.isAsync() && nonFallBackEnable && operation.hasRetry() && virtualThreadExecutor == null);
+    }
+
+    private boolean usesSynchronousCircuitBreaker(CommandMetadata metadata) {
+        FaultToleranceOperation operation = metadata.getOperation();
+        return metadata.isNonFallbackEnabled() && operation.hasCircuitBreaker() && (syncCircuitBreakerEnabled || usesContinuations(operation, true));
+    }
+
+    private boolean usesSemaphoreBulkhead(CommandMetadata metadata) {
+        FaultToleranceOperation operation = metadata.getOperation();
+        return virtualThreadExecutor != null && operation.isAsync() && metadata.isNonFallbackEnabled() && operation.hasBulkhead();
+    }
+
+    /**
+     *
+     * @param metadata
+     * @param circuitBreaker the synchronous circuit breaker or {@code null} if not used
+     * @param semaphoreBulkhead the bulkhead of an operation executed on virtual threads or {@code null} if not used
+     * @param timeout the timeout applied inside the command or {@code null} if not used
+     * @return the execution plan
+     */
+    private ExecutionPlan prepare(CommandMetadata metadata, SynchronousCircuitBreaker circuitBreaker, SemaphoreBulkheadExecutor semaphoreBulkhead,
+            ExecutionTimeout timeout) {
+        if (usesContinuations(metadata.getOperation(), metadata.isNonFallbackEnabled())) {
+            return prepareAsync(metadata, circuitBreaker, semaphoreBulkhead, timeout);
+        }
+        return new HystrixExecutionPlan(metadata, circuitBreaker, semaphoreBulkhead, timeout);
+    }
+
+    private ExecutionPlan prepareAsync(CommandMetadata metadata, SynchronousCircuitBreaker circuitBreaker, SemaphoreBulkheadExecutor semaphoreBulkhead,
+            ExecutionTimeout timeout) {
+        FaultToleranceOperation operation = metadata.getOperation();
+        HystrixCommandKey commandKey = HystrixCommandKey.Factory.asKey(metadata.getMethodKey());
+        Setter setter = initSetter(commandKey, operation, metadata.isNonFallbackEnabled());
+        if (virtualThreadExecutor != null) {
+            Executor executor = semaphoreBulkhead != null ? semaphoreBulkhead : virtualThreadExecutor;
+            return new AsyncExecutionPlan(metadata, (ctx) -> AsyncExecutionPlan.invokeOn(executor, ctx), circuitBreaker, continuationExecutor, scheduler,
+                    timeoutTimer);
+        }
+        // The timeout of the result is applied by the plan, the command only interrupts the pool thread of an operation which returns Future
+        warmUp(setter);
+        return new AsyncExecutionPlan(metadata, (ctx) -> {
+            CompletableFuture<Object> result = new CompletableFuture<>();
+            // The result is not unwrapped by the command, i.e. the pool thread is released as soon as the business method returns
+            new DefaultCommand(setter, ctx, null, null, false, false, timeout, true).toObservable().subscribe((res) -> {
+                try {
+                    AsyncExecutionPlan.pipe(AsyncExecutionPlan.asStage(res), result);
+                } catch (IllegalStateException e) {
+                    result.completeExceptionally(e);
+                }
+            }, (failure) -> result.completeExceptionally(unwrap(failure)));
+            return result;
+        }, circuitBreaker, continuationExecutor, scheduler, timeoutTimer);
+    }
+
+    /**
+     *
+     * @param metadata
+     * @return the timeout of the operation or {@code null} if no timeout is set or if the operation returns {@link CompletionStage}
+     */
+    private ExecutionTimeout createTimeout(CommandMetadata metadata) {
+        FaultToleranceOperation operation = metadata.getOperation();
+        if (!metadata.isNonFallbackEnabled() || !operation.hasTimeout() || operation.returnsCompletionStage()) {
+            // The timeout of a stage is applied by AsyncExecutionPlan
+            return null;
+        }
+        return new ExecutionTimeout(metadata.getMethod().getName(), operation.getTimeout(), timeoutTimer);
+    }
+
+    private SemaphoreBulkheadExecutor createSemaphoreBulkhead(CommandMetadata metadata) {
+        BulkheadConfig bulkheadConfig = metadata.getOperation().getBulkhead();
+        return new SemaphoreBulkheadExecutor(virtualThreadExecutor, bulkheadConfig.get(BulkheadConfig.VALUE), bulkheadConfig.get(BulkheadConfig.WAITING_TASK_QUEUE));
+    }
+
+    private static Object invokeFallback(CommandMetadata metadata, ExecutionContextWithInvocationContext ctx) {
+        try {
+            return metadata.invokeFallback(ctx);
+        } catch (RuntimeException e) {
+            throw e;
+        } catch (Exception e) {
+            // HystrixCommand.getFallback() may not throw a checked exception
+            throw new FaultToleranceException("Error during fallback method invocation", e);
+        }
+    }
+
+    private Throwable unwrap(Throwable failure) {
+        if (failure instanceof HystrixRuntimeException) {
+            HystrixRuntimeException e = (HystrixRuntimeException) failure;
+            switch (e.getFailureType()) {
+                case REJECTED_THREAD_EXECUTION:
+                case REJECTED_SEMAPHORE_EXECUTION:
+                    return new BulkheadException(e);
+                case TIMEOUT:
+                    return new TimeoutException(e);
+                case SHORTCIRCUIT:
+                    return new CircuitBreakerOpenException(e);
+                case COMMAND_EXCEPTION:
+                    return e.getCause() != null ? e.getCause() : e;
+                default:
+                    return e;
+            }
+        }
+        return failure;
+    }
+
+    private SynchronousCircuitBreaker getSynchronousCircuitBreaker(String methodKey, CircuitBreakerConfig config) {
+        HystrixCircuitBreaker circuitBreaker = circuitBreakers.computeIfAbsent(methodKey, (key) -> new SynchronousCircuitBreaker(config));
+        if (circuitBreaker instanceof SynchronousCircuitBreaker) {
+            return (SynchronousCircuitBreaker) circuitBreaker;
+        }
+        throw new IllegalStateException("Cached circuit breaker does not extend SynchronousCircuitBreaker");
+    }
+
+    /**
+     * Hystrix resolves the properties, metrics, circuit breaker and thread pool of a command key when the first command is constructed. A command which is
+     * never executed is constructed, so that the first invocation does not pay for the initialization.
+     *
+     * @param setter
+     */
+    private void warmUp(Setter setter) {
+        new DefaultCommand(setter, null, null, null, false, false, null, false);
+    }
+
+    private Setter initSetter(HystrixCommandKey commandKey, FaultToleranceOperation operation, boolean nonFallBackEnable) {
+        HystrixCommandProperties.Setter propertiesSetter = HystrixCommandProperties.Setter();
+        HystrixThreadPoolProperties.Setter threadPoolSetter = HystrixThreadPoolProperties.Setter();
+
+        // On a virtual thread, the command is executed synchronously
+        boolean virtualThread = operation.isAsync() && virtualThreadExecutor != null;
+
+        if (operation.isAsync() && !virtualThread) {
+            propertiesSetter.withExecutionIsolationStrategy(HystrixCommandProperties.ExecutionIsolationStrategy.THREAD);
+        } else {
+            propertiesSetter.withExecutionIsolationStrategy(HystrixCommandProperties.ExecutionIsolationStrategy.SEMAPHORE);
+        }
+
+        // Circuit breaker is applied as a continuation if AsyncExecutionPlan is used
+        boolean continuations = usesContinuations(operation, nonFallBackEnable);
+
+        // Timeouts are enforced by ExecutionTimeout, i.e. no HystrixTimer listener is registered per execution
+        propertiesSetter.withExecutionTimeoutEnabled(false);
+
+        if (nonFallBackEnable && operation.hasCircuitBreaker() && !continuations) {
+            propertiesSetter.withCircuitBreakerEnabled(true)
+                    .withCircuitBreakerRequestVolumeThreshold(operation.getCircuitBreaker().get(CircuitBreakerConfig.REQUEST_VOLUME_THRESHOLD))
+                    .withCircuitBreakerErrorThresholdPercentage(
+                            new Double((Double) operation.getCircuitBreaker().get(CircuitBreakerConfig.FAILURE_RATIO) * 100).intValue())
+                    .withCircuitBreakerSleepWindowInMilliseconds((int) Duration
+                            .of(operation.getCircuitBreaker().get(CircuitBreakerConfig.DELAY), operation.getCircuitBreaker().get(CircuitBreakerConfig.DELAY_UNIT)).toMillis());
+        } else {
+            propertiesSetter.withCircuitBreakerEnabled(false);
+        }
+
+        if (virtualThread) {
+            // The bulkhead is enforced before the command is executed
+            propertiesSetter.withExecutionIsolationSemaphoreMaxConcurrentRequests(Integer.MAX_VALUE);
+        } else if (nonFallBackEnable && operation.hasBulkhead()) {
+            BulkheadConfig bulkheadConfig = operation.getBulkhead();
+            int size = bulkheadConfig.get(BulkheadConfig.VALUE);
+            propertiesSetter.withExecutionIsolationSemaphoreMaxConcurrentRequests(size).withExecutionIsolationThreadInterruptOnFutureCancel(true);
+            if (operation.isAsync()) {
+                // The pool size is fixed and at most waitingTaskQueue tasks may wait for a thread
+                int queueSize = bulkheadConfig.get(BulkheadConfig.WAITING_TASK_QUEUE);
+                threadPoolSetter.withCoreSize(size).withMaximumSize(size).withMaxQueueSize(queueSize).withQueueSizeRejectionThreshold(queueSize);
+            }
+        }
+
+        Setter setter = Setter.withGroupKey(HystrixCommandGroupKey.Factory.asKey("DefaultCommandGroup"))
+                // Each method must have a unique command key
+                .andCommandKey(commandKey).andCommandPropertiesDefaults(propertiesSetter).andThreadPoolPropertiesDefaults(threadPoolSetter);
+        if (operation.isAsync() && !virtualThread) {
+            // Each asynchronous method has a dedicated thread pool, otherwise all methods would share the pool of the command group
+            setter.andThreadPoolKey(HystrixThreadPoolKey.Factory.asKey(commandKey.name()));
+        }
+        return setter;
+    }
+
+    private boolean shouldRetry(RetryContext retryContext, Exception e) throws Exception {
+        // Decrement the retry count for this attempt
+        retryContext.doRetry();
+        // Check the exception type
+        if (retryContext.shouldRetryOn(e, System.nanoTime())) {
+            retryContext.delayIfNeeded();
+            return true;
+        } else {
+            throw e;
+        }
+    }
+
+    private final ConcurrentHashMap<String, HystrixCircuitBreaker> circuitBreakers;
+
+    private final boolean syncCircuitBreakerEnabled;
+
+    // Retry delays
+    private final ScheduledExecutorService scheduler;
+
+    private final HashedWheelTimer timeoutTimer;
+
+    // Null if virtual threads are not used
+    private final ExecutorService virtualThreadExecutor;
+
+    // Continuations of asynchronous plans which would otherwise run on the scheduler or the timer thread
+    private final ExecutorService continuationExecutor;
+
+    private final ConcurrentMap<String, SemaphoreBulkheadExecutor> semaphoreBulkheads;
+
+    // The timeouts applied inside commands, also keep the interrupt counters
+    private final ConcurrentMap<String, ExecutionTimeout> timeouts;
+
+    private class HystrixExecutionPlan implements ExecutionPlan {
+
+        HystrixExecutionPlan(CommandMetadata metadata, SynchronousCircuitBreaker syncCircuitBreaker, SemaphoreBulkheadExecutor semaphoreBulkhead,
+                ExecutionTimeout timeout) {
+            FaultToleranceOperation operation = metadata.getOperation();
+            boolean nonFallBackEnable = metadata.isNonFallbackEnabled();
+            this.operation = operation;
+            this.method = metadata.getMethod();
+            this.commandKey = HystrixCommandKey.Factory.asKey(metadata.getMethodKey());
+            this.setter = initSetter(commandKey, operation, nonFallBackEnable);
+            this.fallback = metadata.hasFallback() ? (ctx) -> invokeFallback(metadata, ctx) : null;
+            this.metadata = metadata;
+            this.timeout = timeout;
+            this.syncCircuitBreaker = syncCircuitBreaker;
+            if (operation.isAsync() && HystrixExecutionEngine.this.virtualThreadExecutor != null) {
+                this.virtualThreadExecutor = semaphoreBulkhead != null ? semaphoreBulkhead : HystrixExecutionEngine.this.virtualThreadExecutor;
+            } else {
+                this.virtualThreadExecutor = null;
+            }
+            // The synchronous circuit breaker must be registered first
+            warmUp(setter);
+        }
+
+        @Override
+        public Object execute(ExecutionContextWithInvocationContext ctx) throws Exception {
+            if (virtualThreadExecutor == null) {
+                return executeCommand(ctx);
+            }
+            FutureTask<Object> task = new FutureTask<>(() -> executeCommand(ctx));
+            try {
+                virtualThreadExecutor.execute(task);
+                return task;
+            } catch (RejectedExecutionException e) {
+                LOGGER.tracef("Bulkhead rejected the execution of %s", method);
+                if (fallback != null) {
+                    return fallback.apply(ctx);
+                }
+                throw new BulkheadException("Bulkhead queue is full: " + method.getName(), e);
+            }
+        }
+
+        private Object executeCommand(ExecutionContextWithInvocationContext ctx) throws Exception {
+            boolean shouldRunCommand = true;
+            Object res = null;
+            RetryContext retryContext = metadata.newRetryContext();
+
+            while (shouldRunCommand) {
+                shouldRunCommand = false;
+
+                // HystrixCommand instances are single-use, so a new command is needed for every execution
+                // The command of an asynchronous operation is executed on a pool thread or a virtual thread, which may be interrupted
+                DefaultCommand command = new DefaultCommand(setter, ctx, fallback, retryContext, operation.isAsync(), operation.hasCircuitBreaker(), timeout,
+                        operation.isAsync());
+
+                try {
+                    if (operation.isAsync() && virtualThreadExecutor == null) {
+                        res = command.queue();
+                    } else {
+                        res = command.execute();
+                    }
+                    if (syncCircuitBreaker != null) {
+                        syncCircuitBreaker.executionSucceeded();
+                    }
+                    if (retryContext != null) {
+                        retryContext.succeeded();
+                    }
+                } catch (HystrixRuntimeException e) {
+                    if (syncCircuitBreaker != null) {
+                        syncCircuitBreaker.executionFailed(unwrap(e));
+                    }
+                    HystrixRuntimeException.FailureType failureType = e.getFailureType();
+                    LOGGER.tracef("Hystrix runtime failure [%s] when invoking %s", failureType, method);
+                    switch (failureType) {
+                        case TIMEOUT: {
+                            if (retryContext != null && retryContext.shouldRetry()) {
+                                shouldRunCommand = shouldRetry(retryContext, new TimeoutException(e));
+                                if (shouldRunCommand) {
+                                    continue;
+                                }
+                            }
+                            throw new TimeoutException(e);
+                        }
+                        case SHORTCIRCUIT:
+                            throw new CircuitBreakerOpenException(method.getName());
+                        case REJECTED_THREAD_EXECUTION:
+                        case REJECTED_SEMAPHORE_EXECUTION: {
+                            // The thread pool queue or the semaphore of a bulkhead is full
+                            BulkheadException bulkheadException = new BulkheadException(e);
+                            if (retryContext != null && retryContext.shouldRetry()) {
+                                shouldRunCommand = shouldRetry(retryContext, bulkheadException);
+                                continue;
+                            }
+                            throw bulkheadException;
+                        }
+                        case REJECTED_SEMAPHORE_FALLBACK:
+                        case COMMAND_EXCEPTION:
+                            if (retryContext != null && retryContext.shouldRetry()) {
+                                // Classify the actual failure, e.g. a TimeoutException thrown by ExecutionTimeout
+                                shouldRunCommand = shouldRetry(retryContext, (e.getCause() instanceof Exception) ? (Exception) e.getCause() : e);
+                                continue;
+                            }
+                        default:
+                            throw (e.getCause() instanceof Exception) ? (Exception) e.getCause() : e;
+                    }
+                }
+            }
+            return res;
+        }
+
+        private final FaultToleranceOperation operation;
+
+        private final Method method;
+
+        private final HystrixCommandKey commandKey;
+
+        private final Setter setter;
+
+        private final Function<ExecutionContextWithInvocationContext, Object> fallback;
+
+        private final CommandMetadata metadata;
+
+        // Null if no timeout is set
+        private final ExecutionTimeout timeout;
+
+        // Null if the synchronous circuit breaker is not used
+        private final SynchronousCircuitBreaker syncCircuitBreaker;
+
+        // Null if the operation is not executed on a virtual thread
+        private final Executor virtualThreadExecutor;
+
+    }
+
+}
@@ -17,28 +17,46 @@
 package org.wildfly.swarm.microprofile.faulttolerance;
 
 import java.lang.annotation.Annotation;
+import java.lang.reflect.Method;
 import java.lang.reflect.Type;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import javax.enterprise.event.Observes;
+import javax.enterprise.inject.spi.AfterBeanDiscovery;
+import javax.enterprise.inject.spi.AfterDeploymentValidation;
 import javax.enterprise.inject.spi.AnnotatedConstructor;
 import javax.enterprise.inject.spi.AnnotatedField;
 import javax.enterprise.inject.spi.AnnotatedMethod;
 import javax.enterprise.inject.spi.AnnotatedType;
 import javax.enterprise.inject.spi.BeanManager;
 import javax.enterprise.inject.spi.BeforeBeanDiscovery;
+import javax.enterprise.inject.spi.BeforeShutdown;
 import javax.enterprise.inject.spi.Extension;
 import javax.enterprise.inject.spi.ProcessManagedBean;
 
+import org.eclipse.microprofile.config.ConfigProvider;
 import org.eclipse.microprofile.faulttolerance.Asynchronous;
 import org.eclipse.microprofile.faulttolerance.Bulkhead;
 import org.eclipse.microprofile.faulttolerance.CircuitBreaker;
 import org.eclipse.microprofile.faulttolerance.Fallback;
 import org.eclipse.microprofile.faulttolerance.Retry;
 import org.eclipse.microprofile.faulttolerance.Timeout;
+import org.eclipse.microprofile.faulttolerance.exceptions.FaultToleranceDefinitionException;
 import org.jboss.logging.Logger;
 import org.wildfly.swarm.microprofile.faulttolerance.config.FaultToleranceOperation;
 
@@ -47,14 +65,62 @@ import org.wildfly.swarm.microprofile.faulttolerance.config.FaultToleranceOperat
  */
 public class HystrixExtension implements Extension {
 
+    /**
+     * This config property key can be used to set the number of threads which validate fault tolerance operations at boot. The default value is the number
+     * of available processors; {@code 1} means the operations are validated on the container thread.
+     */
+    public static final String DISCOVERY_PARALLELISM_KEY = "org_wildfly_swarm_microprofile_faulttolerance_discoveryParallelism";
+
     private static final Logger LOGGER = Logger.getLogger(HystrixExtension.class);
 
+    private static final String NON_FALLBACK_ENABLED_KEY = "MP_Fault_Tolerance_NonFallback_Enabled";
+
+    // Fewer candidates are validated on the container thread
+    private static final int PARALLEL_DISCOVERY_THRESHOLD = 64;
+
+    private static final Set<Class<? extends Annotation>> FAULT_TOLERANCE_ANNOTATIONS = new HashSet<>(
+            Arrays.asList(Asynchronous.class, Bulkhead.class, CircuitBreaker.class, Fallback.class, Retry.class, Timeout.class));
+
+    /**
+     * @see #validateFaultToleranceOperations(AfterBeanDiscovery)
+     */
+    private final ConcurrentMap<Method, FaultToleranceOperation> faultToleranceOperations = new ConcurrentHashMap<>();
+
+    // Methods which may be fault tolerance operations, until all beans are discovered
+    private final List<AnnotatedMethod<?>> candidates = Collections.synchronizedList(new ArrayList<>());
+
     /**
-     * @see #collectFaultToleranceOperations(ProcessManagedBean)
+     * @see #prepareExecutionPlans(AfterDeploymentValidation)
      */
-    private final ConcurrentMap<String, FaultToleranceOperation> faultToleranceOperations = new ConcurrentHashMap<>();
+    private final ConcurrentMap<Method, ExecutionPlan> executionPlans = new ConcurrentHashMap<>();
+
+    /**
+     * The plans prepared when the deployment is validated, indexed by the declaring class. Null until then.
+     */
+    private volatile Map<Class<?>, DeclaredExecutionPlans> preparedPlans;
+
+    private final ClassValue<DeclaredExecutionPlans> declaredPlans = new ClassValue<DeclaredExecutionPlans>() {
+        @Override
+        protected DeclaredExecutionPlans computeValue(Class<?> type) {
+            return preparedPlans.getOrDefault(type, DeclaredExecutionPlans.EMPTY);
+        }
+    };
+
+    private final ConcurrentMap<String, RetryBudget> retryBudgets = new ConcurrentHashMap<>();
+
+    // Set before bean discovery, i.e. before any plan can be prepared
+    private volatile BeanManager beanManager;
+
+    // Metadata of the prepared plans which are not reloaded, so that pooled fallback handlers are destroyed at shutdown; see also ConfigReloader#stop()
+    private final Queue<CommandMetadata> preparedMetadata = new ConcurrentLinkedQueue<>();
+
+    private volatile ExecutionEngine executionEngine;
+
+    // Null if config parameters are not reloaded
+    private volatile ConfigReloader configReloader;
 
     void registerInterceptorBindings(@Observes BeforeBeanDiscovery bbd, BeanManager bm) {
+        this.beanManager = bm;
         LOGGER.info("MicroProfile: Fault Tolerance activated");
         bbd.addInterceptorBinding(new HystrixInterceptorBindingAnnotatedType<>(bm.createAnnotatedType(CircuitBreaker.class)));
         bbd.addInterceptorBinding(new HystrixInterceptorBindingAnnotatedType<>(bm.createAnnotatedType(Retry.class)));
@@ -65,28 +131,301 @@ public class HystrixExtension implements Extension {
     }
 
     /**
-     * Observe all enabled managed beans and identify/validate FT operations. This allows us to:
+     * Observe all enabled managed beans and identify FT operations. This allows us to:
      * <ul>
      * <li>Skip validation of types which are not recognized as beans (e.g. are vetoed)</li>
      * <li>Take the final values of AnnotatedTypes</li>
      * <li>Support annotations added via portable extensions</li>
      * </ul>
+     * <p>
+     * Only the annotations of a method and its declaring type are inspected here, i.e. types without fault tolerance annotations are skipped without creating
+     * any config. The candidates are validated once all beans are discovered.
+     * </p>
      *
      * @param event
+     * @see #validateFaultToleranceOperations(AfterBeanDiscovery)
      */
     void collectFaultToleranceOperations(@Observes ProcessManagedBean<?> event) {
         AnnotatedType<?> annotatedType = event.getAnnotatedBeanClass();
+        boolean typeAnnotated = hasFaultToleranceAnnotation(annotatedType.getAnnotations());
         for (AnnotatedMethod<?> annotatedMethod : annotatedType.getMethods()) {
+            // A method inherited from an annotated superclass is a candidate as well
+            if (typeAnnotated || hasFaultToleranceAnnotation(annotatedMethod.getAnnotations())
+                    || hasFaultToleranceAnnotation(annotatedMethod.getDeclaringType().getAnnotations())) {
+                candidates.add(annotatedMethod);
+            }
+        }
+    }
+
+    /**
+     * Create and validate the operations of all candidate methods. If there are many candidates, the work is split among
+     * {@link #DISCOVERY_PARALLELISM_KEY} threads. Every invalid operation is reported as a definition error.
+     *
+     * @param event
+     */
+    void validateFaultToleranceOperations(@Observes AfterBeanDiscovery event) {
+        List<AnnotatedMethod<?>> methods = new ArrayList<>(candidates);
+        candidates.clear();
+        int parallelism = ConfigProvider.getConfig().getOptionalValue(DISCOVERY_PARALLELISM_KEY, Integer.class)
+                .orElse(Runtime.getRuntime().availableProcessors());
+        if (parallelism < 2 || methods.size() < PARALLEL_DISCOVERY_THRESHOLD) {
+            for (AnnotatedMethod<?> method : methods) {
+                Throwable problem = collectFaultToleranceOperation(method);
+                if (problem != null) {
+                    event.addDefinitionError(problem);
+                }
+            }
+            return;
+        }
+        // Pool threads inherit the context class loader of this thread, i.e. they see the same MicroProfile Config
+        int poolSize = Math.min(parallelism, methods.size());
+        ExecutorService executor = Executors.newFixedThreadPool(poolSize, new DaemonThreadFactory("ft-discovery"));
+        try {
+            List<Future<Throwable>> results = new ArrayList<>(methods.size());
+            for (AnnotatedMethod<?> method : methods) {
+                results.add(executor.submit(() -> collectFaultToleranceOperation(method)));
+            }
+            for (Future<Throwable> result : results) {
+                try {
+                    Throwable problem = result.get();
+                    if (problem != null) {
+                        event.addDefinitionError(problem);
+                    }
+                } catch (ExecutionException e) {
+                    event.addDefinitionError(e.getCause());
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    event.addDefinitionError(e);
+                    return;
+                }
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        LOGGER.debugf("%s candidate methods validated by %s threads", methods.size(), poolSize);
+    }
+
+    /**
+     * Operations are indexed by {@link Method}, i.e. this method performs a linear search. It is only intended for tooling and tests.
+     *
+     * @param methodKey the value of {@link Method#toGenericString()}
+     * @return the operation or {@code null} if no operation of a bean method matches the given key
+     */
+    FaultToleranceOperation getFaultToleranceOperation(String methodKey) {
+        for (FaultToleranceOperation operation : faultToleranceOperations.values()) {
+            if (operation.getMethod().toGenericString().equals(methodKey)) {
+                return operation;
+            }
+        }
+        return null;
+    }
+
+    /**
+     *
+     * @param key may be {@code null}
+     * @return the retry budget shared by all operations with the given key or {@code null} if no key is specified
+     */
+    RetryBudget getRetryBudget(String key) {
+        return key != null ? retryBudgets.computeIfAbsent(key, RetryBudget::of) : null;
+    }
+
+    /**
+     * The engine is created lazily when the first execution plan is prepared, i.e. typically when the deployment is validated. Applications may use it to monitor the operations, e.g.
+     * {@link ExecutionEngine#getBulkheadQueueSize(String)}.
+     *
+     * @return the execution engine
+     * @see ExecutionEngine#CONFIG_KEY
+     */
+    public ExecutionEngine getExecutionEngine() {
+        ExecutionEngine engine = executionEngine;
+        if (engine == null) {
+            synchronized (this) {
+                engine = executionEngine;
+                if (engine == null) {
+                    engine = createExecutionEngine();
+                    executionEngine = engine;
+                }
+            }
+        }
+        return engine;
+    }
+
+    /**
+     * Prepare the execution plans of all the operations collected during bean discovery, so that the first invocation of an operation does not pay for
+     * the metadata, the engine-specific setup (e.g. Hystrix properties and metrics) and reflection. An operation which cannot be prepared is reported when
+     * it is invoked.
+     *
+     * @param event
+     */
+    void prepareExecutionPlans(@Observes AfterDeploymentValidation event) {
+        configReloader = ConfigReloader.fromConfig(this);
+        Map<Class<?>, Map<Method, ExecutionPlan>> plansByClass = new HashMap<>();
+        for (FaultToleranceOperation operation : faultToleranceOperations.values()) {
+            Method method = operation.getMethod();
+            try {
+                plansByClass.computeIfAbsent(method.getDeclaringClass(), (type) -> new HashMap<>()).put(method,
+                        executionPlans.computeIfAbsent(method, this::createExecutionPlan));
+            } catch (RuntimeException e) {
+                LOGGER.warnf(e, "Unable to prepare the execution plan of %s", operation);
+            }
+        }
+        Map<Class<?>, DeclaredExecutionPlans> prepared = new HashMap<>();
+        for (Map.Entry<Class<?>, Map<Method, ExecutionPlan>> entry : plansByClass.entrySet()) {
+            prepared.put(entry.getKey(), new DeclaredExecutionPlans(entry.getValue()));
+        }
+        preparedPlans = prepared;
+        LOGGER.debugf("%s execution plans prepared", executionPlans.size());
+    }
+
+    /**
+     *
+     * @param method
+     * @return the execution plan shared by all the invocations of the given method
+     */
+    ExecutionPlan getExecutionPlan(Method method) {
+        if (preparedPlans != null) {
+            ExecutionPlan plan = declaredPlans.get(method.getDeclaringClass()).get(method);
+            if (plan != null) {
+                return plan;
+            }
+        }
+        // Not a bean method or the deployment is not validated yet
+        // Avoid computeIfAbsent() locking in the steady state
+        ExecutionPlan plan = executionPlans.get(method);
+        if (plan == null) {
+            plan = executionPlans.computeIfAbsent(method, this::createExecutionPlan);
+        }
+        return plan;
+    }
+
+    void shutdown(@Observes BeforeShutdown event) {
+        ConfigReloader reloader = configReloader;
+        if (reloader != null) {
+            reloader.stop();
+        }
+        ExecutionEngine engine = executionEngine;
+        if (engine != null) {
+            engine.shutdown();
+        }
+        CommandMetadata metadata;
+        while ((metadata = preparedMetadata.poll()) != null) {
+            metadata.dispose();
+        }
+    }
+
+    /**
+     *
+     * @param annotatedMethod
+     * @return the problem found or {@code null} if the method is not a valid fault tolerance operation
+     */
+    private Throwable collectFaultToleranceOperation(AnnotatedMethod<?> annotatedMethod) {
+        try {
             FaultToleranceOperation operation = FaultToleranceOperation.of(annotatedMethod);
             if (operation.isLegitimate() && operation.validate()) {
                 LOGGER.debugf("Found %s", operation);
-                faultToleranceOperations.put(annotatedMethod.getJavaMember().toGenericString(), operation);
+                faultToleranceOperations.put(annotatedMethod.getJavaMember(), operation);
             }
+            return null;
+        } catch (RuntimeException e) {
+            return e;
         }
     }
 
-    FaultToleranceOperation getFaultToleranceOperation(String methodKey) {
-        return faultToleranceOperations.get(methodKey);
+    private static boolean hasFaultToleranceAnnotation(Set<Annotation> annotations) {
+        for (Annotation annotation : annotations) {
+            if (FAULT_TOLERANCE_ANNOTATIONS.contains(annotation.annotationType())) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private ExecutionPlan createExecutionPlan(Method method) {
+        // The key is only built once per operation, e.g. it is the Hystrix command key
+        String methodKey = method.toGenericString();
+        FaultToleranceOperation operation = faultToleranceOperations.get(method);
+        if (operation == null) {
+            // This is not a bean method - create metadata on the fly
+            operation = FaultToleranceOperation.of(method);
+            operation.validate();
+        }
+        ConfigReloader reloader = configReloader;
+        if (reloader != null) {
+            return reloader.register(methodKey, operation, (reloaded) -> createMetadata(method, methodKey, reloaded));
+        }
+        CommandMetadata metadata = createMetadata(method, methodKey, operation);
+        ExecutionPlan plan = getExecutionEngine().prepare(metadata);
+        preparedMetadata.add(metadata);
+        return plan;
+    }
+
+    private CommandMetadata createMetadata(Method method, String methodKey, FaultToleranceOperation operation) {
+        boolean nonFallbackEnabled = ConfigProvider.getConfig().getOptionalValue(NON_FALLBACK_ENABLED_KEY, Boolean.class).orElse(true);
+        RetryBudget retryBudget = operation.hasRetry() ? getRetryBudget(operation.getRetry().getBudget()) : null;
+        return new CommandMetadata(method, methodKey, operation, beanManager, nonFallbackEnabled, retryBudget);
+    }
+
+    private ExecutionEngine createExecutionEngine() {
+        String name = ConfigProvider.getConfig().getOptionalValue(ExecutionEngine.CONFIG_KEY, String.class).orElse(ExecutionEngine.HYSTRIX);
+        LOGGER.debugf("Using %s execution engine", name);
+        switch (name) {
+            case ExecutionEngine.HYSTRIX:
+                return new HystrixExecutionEngine();
+            case ExecutionEngine.NATIVE:
+                return new NativeExecutionEngine();
+            default:
+                try {
+                    ClassLoader cl = SecurityActions.getContextClassLoader();
+                    Class<?> engineClass = Class.forName(name, true, cl != null ? cl : HystrixExtension.class.getClassLoader());
+                    return (ExecutionEngine) engineClass.getDeclaredConstructor().newInstance();
+                } catch (ReflectiveOperationException | ClassCastException e) {
+                    throw new FaultToleranceDefinitionException("Unable to create execution engine: " + name, e);
+                }
+        }
+    }
+
+    /**
+     * The execution plans of the fault tolerance operations declared by a class. A class declares only a few operations, i.e. a linear search is faster than
+     * hashing the {@link Method}. The interceptor usually passes the very same {@link Method} instance that was discovered, so that identity is checked first.
+     */
+    private static final class DeclaredExecutionPlans {
+
+        static final DeclaredExecutionPlans EMPTY = new DeclaredExecutionPlans(Collections.emptyMap());
+
+        DeclaredExecutionPlans(Map<Method, ExecutionPlan> plans) {
+            this.methods = new Method[plans.size()];
+            this.plans = new ExecutionPlan[plans.size()];
+            int index = 0;
+            for (Map.Entry<Method, ExecutionPlan> entry : plans.entrySet()) {
+                this.methods[index] = entry.getKey();
+                this.plans[index] = entry.getValue();
+                index++;
+            }
+        }
+
+        /**
+         *
+         * @param method
+         * @return the plan or {@code null} if the method was not prepared
+         */
+        ExecutionPlan get(Method method) {
+            for (int i = 0; i < methods.length; i++) {
+                if (methods[i] == method) {
+                    return plans[i];
+                }
+            }
+            for (int i = 0; i < methods.length; i++) {
+                if (methods[i].equals(method)) {
+                    return plans[i];
+                }
+            }
+            return null;
+        }
+
+        private final Method[] methods;
+
+        private final ExecutionPlan[] plans;
+
     }
 
     public static class HystrixInterceptorBindingAnnotatedType<T extends Annotation> implements AnnotatedType<T> {
@@ -0,0 +1,441 @@
+/*
+ * Copyright 2017 Red Hat, Inc, and individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.wildfly.swarm.microprofile.faulttolerance;
+
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Method;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+import org.eclipse.microprofile.faulttolerance.Bulkhead;
+import org.eclipse.microprofile.faulttolerance.CircuitBreaker;
+import org.eclipse.microprofile.faulttolerance.Timeout;
+import org.eclipse.microprofile.faulttolerance.exceptions.BulkheadException;
+import org.eclipse.microprofile.faulttolerance.exceptions.CircuitBreakerOpenException;
+import org.jboss.logging.Logger;
+import org.wildfly.swarm.microprofile.faulttolerance.config.BulkheadConfig;
+import org.wildfly.swarm.microprofile.faulttolerance.config.FaultToleranceOperation;
+import org.wildfly.swarm.microprofile.faulttolerance.config.RetryConfig;
+
+/**
+ * A lightweight engine which applies the fault tolerance policies directly on top of {@code java.util.concurrent}:
+ * <ul>
+ * <li>{@code @Asynchronous} operations are executed on a shared cached thread pool, or on a dedicated bounded pool if {@code @Bulkhead} is present; at most
+ * {@code waitingTaskQueue} tasks may wait for a thread of the pool</li>
+ * <li>synchronous {@code @Bulkhead} is a {@link Semaphore}</li>
+ * <li>{@code @CircuitBreaker} is a {@link SynchronousCircuitBreaker}</li>
+ * <li>{@code @Timeout} is an {@link ExecutionTimeout} backed by a {@link HashedWheelTimer}; a synchronous timeout is detected once the invocation completes
+ * (or the caller thread is interrupted, see {@link org.wildfly.swarm.microprofile.faulttolerance.config.TimeoutConfig#INTERRUPT}), the worker thread of an
+ * {@code @Asynchronous} operation is interrupted</li>
+ * <li>{@code @Retry} and {@code @Fallback} wrap all the other policies</li>
+ * </ul>
+ * <p>
+ * Operations which return {@link java.util.concurrent.CompletionStage}, and {@code @Asynchronous} operations which declare {@code @Retry}, are executed by
+ * {@link AsyncExecutionPlan}, i.e. no thread is held during a retry delay.
+ * </p>
+ * <p>
+ * If {@link ExecutionEngine#VIRTUAL_THREADS_KEY} is enabled, {@code @Asynchronous} operations are executed on virtual threads and an asynchronous bulkhead is
+ * a {@link SemaphoreBulkheadExecutor}.
+ * </p>
+ *
+ * @see ExecutionEngine#NATIVE
+ */
+class NativeExecutionEngine implements ExecutionEngine {
+
+    private static final Logger LOGGER = Logger.getLogger(NativeExecutionEngine.class);
+
+    // The threads of a replaced bulkhead thread pool terminate once idle for this time
+    private static final long RETIRED_KEEP_ALIVE_MILLIS = 1000;
+
+    NativeExecutionEngine() {
+        this.plans = new ConcurrentHashMap<>();
+        this.policies = new ConcurrentHashMap<>();
+        ExecutorService virtualThreadExecutor = VirtualThreads.newExecutorIfEnabled();
+        this.virtualThreads = virtualThreadExecutor != null;
+        this.asyncExecutor = virtualThreads ? virtualThreadExecutor : Executors.newCachedThreadPool(new DaemonThreadFactory("ft-async"));
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(new DaemonThreadFactory("ft-scheduler"));
+        this.timeoutTimer = HashedWheelTimer.fromConfig("ft-timeout");
+    }
+
+    @Override
+    public ExecutionPlan prepare(CommandMetadata metadata) {
+        // The state of an operation, e.g. the circuit breaker, must be shared by all the interceptor instances
+        return plans.computeIfAbsent(metadata.getMethodKey(), (key) -> {
+            Policies operationPolicies = new Policies(createCircuitBreaker(metadata), createBulkhead(metadata), createBulkheadExecutor(metadata),
+                    createTimeout(metadata));
+            policies.put(key, operationPolicies);
+            return createPlan(metadata, operationPolicies);
+        });
+    }
+
+    /**
+     * The circuit breaker and the bulkhead are replaced if their parameters changed. A replaced bulkhead thread pool is not shut down: it executes the tasks
+     * it already accepted, also those submitted by invocations of the previous plan which are still in progress, and its threads terminate once idle.
+     */
+    @Override
+    public void reload(CommandMetadata metadata, Set<Class<? extends Annotation>> changedPolicies, Consumer<ExecutionPlan> publisher) {
+        String methodKey = metadata.getMethodKey();
+        Policies previous = policies.get(methodKey);
+        if (previous == null) {
+            publisher.accept(prepare(metadata));
+            return;
+        }
+        boolean bulkheadChanged = changedPolicies.contains(Bulkhead.class);
+        Policies reloaded = new Policies(changedPolicies.contains(CircuitBreaker.class) ? createCircuitBreaker(metadata) : previous.circuitBreaker,
+                bulkheadChanged ? createBulkhead(metadata) : previous.bulkhead, bulkheadChanged ? createBulkheadExecutor(metadata) : previous.bulkheadExecutor,
+                changedPolicies.contains(Timeout.class) ? createTimeout(metadata) : previous.timeout);
+        ExecutionPlan plan = createPlan(metadata, reloaded);
+        policies.put(methodKey, reloaded);
+        plans.put(methodKey, plan);
+        publisher.accept(plan);
+        if (previous.bulkheadExecutor != reloaded.bulkheadExecutor && previous.bulkheadExecutor instanceof ThreadPoolExecutor) {
+            ThreadPoolExecutor retired = (ThreadPoolExecutor) previous.bulkheadExecutor;
+            retired.setKeepAliveTime(RETIRED_KEEP_ALIVE_MILLIS, TimeUnit.MILLISECONDS);
+            retired.allowCoreThreadTimeOut(true);
+        }
+    }
+
+    @Override
+    public int getBulkheadQueueSize(String methodKey) {
+        Policies operationPolicies = policies.get(methodKey);
+        Executor bulkheadExecutor = operationPolicies != null ? operationPolicies.bulkheadExecutor : null;
+        if (bulkheadExecutor instanceof ThreadPoolExecutor) {
+            return ((ThreadPoolExecutor) bulkheadExecutor).getQueue().size();
+        } else if (bulkheadExecutor instanceof SemaphoreBulkheadExecutor) {
+            return ((SemaphoreBulkheadExecutor) bulkheadExecutor).getQueueSize();
+        }
+        return -1;
+    }
+
+    @Override
+    public long getTimeoutStoppedCount(String methodKey) {
+        Policies operationPolicies = policies.get(methodKey);
+        return operationPolicies != null && operationPolicies.timeout != null ? operationPolicies.timeout.getStoppedCount() : -1;
+    }
+
+    @Override
+    public long getTimeoutNotStoppedCount(String methodKey) {
+        Policies operationPolicies = policies.get(methodKey);
+        return operationPolicies != null && operationPolicies.timeout != null ? operationPolicies.timeout.getNotStoppedCount() : -1;
+    }
+
+    @Override
+    public void shutdown() {
+        asyncExecutor.shutdownNow();
+        scheduler.shutdownNow();
+        timeoutTimer.stop();
+        for (Policies operationPolicies : policies.values()) {
+            if (operationPolicies.bulkheadExecutor instanceof ExecutorService) {
+                ((ExecutorService) operationPolicies.bulkheadExecutor).shutdownNow();
+            }
+        }
+    }
+
+    private ExecutionPlan createPlan(CommandMetadata metadata, Policies operationPolicies) {
+        FaultToleranceOperation operation = metadata.getOperation();
+        if (!operation.returnsCompletionStage()) {
+            NativeExecutionPlan plan = new NativeExecutionPlan(metadata, operationPolicies);
+            if (operation.isAsync() && plan.retryConfig != null) {
+                // Retries are scheduled instead of sleeping on a worker thread
+                return new AsyncExecutionPlan(metadata, plan::submitAttempt, plan.circuitBreaker, asyncExecutor, scheduler, timeoutTimer);
+            }
+            return plan;
+        }
+        Executor executor = operationPolicies.bulkheadExecutor != null ? operationPolicies.bulkheadExecutor : asyncExecutor;
+        return new AsyncExecutionPlan(metadata, (ctx) -> AsyncExecutionPlan.invokeOn(executor, ctx), operationPolicies.circuitBreaker, asyncExecutor, scheduler,
+                timeoutTimer);
+    }
+
+    private SynchronousCircuitBreaker createCircuitBreaker(CommandMetadata metadata) {
+        FaultToleranceOperation operation = metadata.getOperation();
+        return metadata.isNonFallbackEnabled() && operation.hasCircuitBreaker() ? new SynchronousCircuitBreaker(operation.getCircuitBreaker()) : null;
+    }
+
+    /**
+     *
+     * @param metadata
+     * @return the timeout of an operation which does not return {@link CompletionStage} or {@code null} if not used
+     */
+    private ExecutionTimeout createTimeout(CommandMetadata metadata) {
+        FaultToleranceOperation operation = metadata.getOperation();
+        if (!metadata.isNonFallbackEnabled() || !operation.hasTimeout() || operation.returnsCompletionStage()) {
+            // The timeout of a stage is applied by AsyncExecutionPlan
+            return null;
+        }
+        return new ExecutionTimeout(metadata.getMethod().getName(), operation.getTimeout(), timeoutTimer);
+    }
+
+    /**
+     *
+     * @param metadata
+     * @return the bulkhead of a synchronous operation or {@code null} if not used
+     */
+    private Semaphore createBulkhead(CommandMetadata metadata) {
+        FaultToleranceOperation operation = metadata.getOperation();
+        if (!metadata.isNonFallbackEnabled() || !operation.hasBulkhead() || operation.isAsync() || operation.returnsCompletionStage()) {
+            return null;
+        }
+        return new Semaphore(operation.getBulkhead().get(BulkheadConfig.VALUE));
+    }
+
+    /**
+     *
+     * @param metadata
+     * @return the bulkhead of an asynchronous operation or {@code null} if not used
+     */
+    private Executor createBulkheadExecutor(CommandMetadata metadata) {
+        FaultToleranceOperation operation = metadata.getOperation();
+        if (!metadata.isNonFallbackEnabled() || !operation.hasBulkhead() || !(operation.isAsync() || operation.returnsCompletionStage())) {
+            return null;
+        }
+        BulkheadConfig bulkheadConfig = operation.getBulkhead();
+        int value = bulkheadConfig.get(BulkheadConfig.VALUE);
+        int waitingTaskQueue = bulkheadConfig.get(BulkheadConfig.WAITING_TASK_QUEUE);
+        Executor executor;
+        if (virtualThreads) {
+            executor = new SemaphoreBulkheadExecutor(asyncExecutor, value, waitingTaskQueue);
+        } else {
+            // Unlike ArrayBlockingQueue, the linked queue uses separate locks for submitters and workers
+            executor = new ThreadPoolExecutor(value, value, 0L, TimeUnit.MILLISECONDS, new LinkedBlockingQueue<>(waitingTaskQueue),
+                    new DaemonThreadFactory("ft-bulkhead-" + metadata.getMethod().getName()));
+        }
+        return executor;
+    }
+
+    private final ConcurrentMap<String, ExecutionPlan> plans;
+
+    // The stateful policies of each operation, shared by its subsequent plans unless their parameters changed
+    private final ConcurrentMap<String, Policies> policies;
+
+    private final ExecutorService asyncExecutor;
+
+    private final boolean virtualThreads;
+
+    // Retry delays
+    private final ScheduledExecutorService scheduler;
+
+    private final HashedWheelTimer timeoutTimer;
+
+    private class NativeExecutionPlan implements ExecutionPlan {
+
+        NativeExecutionPlan(CommandMetadata metadata, Policies operationPolicies) {
+            FaultToleranceOperation operation = metadata.getOperation();
+            boolean nonFallbackEnabled = metadata.isNonFallbackEnabled();
+            this.metadata = metadata;
+            this.method = metadata.getMethod();
+            this.async = operation.isAsync();
+            this.retryConfig = nonFallbackEnabled && operation.hasRetry() ? operation.getRetry() : null;
+            this.circuitBreaker = operationPolicies.circuitBreaker;
+            this.timeout = operationPolicies.timeout;
+            this.bulkheadExecutor = operationPolicies.bulkheadExecutor;
+            this.bulkhead = operationPolicies.bulkhead;
+        }
+
+        @Override
+        public Object execute(ExecutionContextWithInvocationContext ctx) throws Exception {
+            return async ? submit(ctx) : invoke(ctx);
+        }
+
+        private Future<Object> submit(ExecutionContextWithInvocationContext ctx) throws Exception {
+            Executor executor = bulkheadExecutor != null ? bulkheadExecutor : asyncExecutor;
+            FutureTask<Object> task = new FutureTask<>(() -> invoke(ctx));
+            try {
+                executor.execute(task);
+                return task;
+            } catch (RejectedExecutionException e) {
+                LOGGER.tracef("Bulkhead rejected the execution of %s", method);
+                if (metadata.hasFallback()) {
+                    return CompletableFuture.completedFuture(unwrap(metadata.invokeFallback(ctx)));
+                }
+                throw new BulkheadException("Bulkhead queue is full: " + method.getName(), e);
+            }
+        }
+
+        /**
+         * Submit a single attempt, i.e. circuit breaker, retry and fallback are not applied.
+         *
+         * @param ctx
+         * @return the stage completed with the unwrapped result
+         */
+        CompletionStage<Object> submitAttempt(ExecutionContextWithInvocationContext ctx) {
+            Executor executor = bulkheadExecutor != null ? bulkheadExecutor : asyncExecutor;
+            CompletableFuture<Object> result = new CompletableFuture<>();
+            try {
+                executor.execute(() -> {
+                    try {
+                        result.complete(invokeWithTimeout(ctx));
+                    } catch (Throwable e) {
+                        result.completeExceptionally(e);
+                    }
+                });
+            } catch (RejectedExecutionException e) {
+                LOGGER.tracef("Bulkhead rejected the execution of %s", method);
+                result.completeExceptionally(new BulkheadException("Bulkhead queue is full: " + method.getName(), e));
+            }
+            return result;
+        }
+
+        private Object invoke(ExecutionContextWithInvocationContext ctx) throws Exception {
+            RetryContext retryContext = metadata.newRetryContext();
+            while (true) {
+                Exception failure;
+                if (circuitBreaker != null && !circuitBreaker.attemptExecution()) {
+                    // Like a short-circuited Hystrix command, an open circuit is not retried
+                    failure = new CircuitBreakerOpenException(method.getName());
+                } else {
+                    try {
+                        Object res = attempt(ctx);
+                        if (retryContext != null) {
+                            retryContext.succeeded();
+                        }
+                        return res;
+                    } catch (Exception e) {
+                        if (retryContext != null) {
+                            // Decrement the retry count for this attempt
+                            retryContext.doRetry();
+                            if (retryContext.shouldRetryOn(e, System.nanoTime())) {
+                                retryContext.delayIfNeeded();
+                                continue;
+                            }
+                        }
+                        failure = e;
+                    }
+                }
+                if (metadata.hasFallback()) {
+                    return unwrap(metadata.invokeFallback(ctx));
+                }
+                throw failure;
+            }
+        }
+
+        /**
+         * The circuit breaker must permit the attempt.
+         */
+        private Object attempt(ExecutionContextWithInvocationContext ctx) throws Exception {
+            try {
+                Object res = bulkhead != null ? invokeWithBulkhead(ctx) : invokeWithTimeout(ctx);
+                if (circuitBreaker != null) {
+                    circuitBreaker.executionSucceeded();
+                }
+                return res;
+            } catch (Exception e) {
+                if (circuitBreaker != null) {
+                    circuitBreaker.executionFailed(e);
+                }
+                throw e;
+            }
+        }
+
+        private Object invokeWithBulkhead(ExecutionContextWithInvocationContext ctx) throws Exception {
+            if (!bulkhead.tryAcquire()) {
+                throw new BulkheadException("Bulkhead limit reached: " + method.getName());
+            }
+            try {
+                return invokeWithTimeout(ctx);
+            } finally {
+                bulkhead.release();
+            }
+        }
+
+        private Object invokeWithTimeout(ExecutionContextWithInvocationContext ctx) throws Exception {
+            if (timeout == null) {
+                return unwrap(ctx.proceed());
+            }
+            // We own the worker thread of an asynchronous operation and so it's safe to interrupt it
+            return timeout.invoke(() -> unwrap(ctx.proceed()), async);
+        }
+
+        private Object unwrap(Object res) throws Exception {
+            if (!async) {
+                return res;
+            }
+            // For an async invocation we have to unwrap the result
+            if (res instanceof Future) {
+                try {
+                    return ((Future<?>) res).get();
+                } catch (ExecutionException e) {
+                    if (e.getCause() instanceof Exception) {
+                        throw (Exception) e.getCause();
+                    }
+                    throw e;
+                }
+            } else {
+                throw new IllegalStateException("A result of an @Asynchronous call must be Future: " + res);
+            }
+        }
+
+        private final CommandMetadata metadata;
+
+        private final Method method;
+
+        private final boolean async;
+
+        // Null if no retry should be performed
+        private final RetryConfig retryConfig;
+
+        private final SynchronousCircuitBreaker circuitBreaker;
+
+        // Null if no timeout is set
+        private final ExecutionTimeout timeout;
+
+        // Synchronous bulkhead
+        private final Semaphore bulkhead;
+
+        // Asynchronous bulkhead
+        private final Executor bulkheadExecutor;
+
+    }
+
+    private static final class Policies {
+
+        Policies(SynchronousCircuitBreaker circuitBreaker, Semaphore bulkhead, Executor bulkheadExecutor, ExecutionTimeout timeout) {
+            this.circuitBreaker = circuitBreaker;
+            this.bulkhead = bulkhead;
+            this.bulkheadExecutor = bulkheadExecutor;
+            this.timeout = timeout;
+        }
+
+        // Null if no circuit breaker is used
+        private final SynchronousCircuitBreaker circuitBreaker;
+
+        // Synchronous bulkhead
+        private final Semaphore bulkhead;
+
+        // Asynchronous bulkhead
+        private final Executor bulkheadExecutor;
+
+        // Null if no timeout is set, also keeps the interrupt counters
+        private final ExecutionTimeout timeout;
+
+    }
+
+}
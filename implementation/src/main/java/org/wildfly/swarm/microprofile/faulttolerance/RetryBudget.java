@@ -0,0 +1,131 @@
+/*
+ * Copyright 2017 Red Hat, Inc, and individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.wildfly.swarm.microprofile.faulttolerance;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.eclipse.microprofile.config.Config;
+import org.eclipse.microprofile.config.ConfigProvider;
+import org.eclipse.microprofile.faulttolerance.exceptions.FaultToleranceDefinitionException;
+import org.wildfly.swarm.microprofile.faulttolerance.config.RetryConfig;
+
+/**
+ * A token bucket which caps the number of retries as a fraction of successful invocations. A budget is shared by all operations with the same
+ * {@link RetryConfig#BUDGET} key.
+ * <p>
+ * Every successful invocation deposits {@code ratio} tokens and every retry withdraws one token. The bucket starts full and never holds more than
+ * {@code capacity} tokens, i.e. short bursts of failures are retried but a persistent failure of a dependency adds at most {@code ratio} extra load. Tokens are
+ * kept in fixed-point so that both operations are a single CAS.
+ * </p>
+ *
+ * @see #CONFIG_PREFIX
+ */
+final class RetryBudget {
+
+    /**
+     * The budget parameters are configured per key, e.g. {@code org_wildfly_swarm_microprofile_faulttolerance_retryBudget/backend/ratio=0.1} and
+     * {@code org_wildfly_swarm_microprofile_faulttolerance_retryBudget/backend/capacity=20}.
+     */
+    static final String CONFIG_PREFIX = "org_wildfly_swarm_microprofile_faulttolerance_retryBudget/";
+
+    static final String RATIO = "ratio";
+
+    static final String CAPACITY = "capacity";
+
+    static final double DEFAULT_RATIO = 0.2;
+
+    static final int DEFAULT_CAPACITY = 10;
+
+    private static final long TOKEN = 1000;
+
+    /**
+     *
+     * @param key
+     * @return the budget configured for the given key
+     */
+    static RetryBudget of(String key) {
+        Config config = ConfigProvider.getConfig();
+        double ratio = config.getOptionalValue(CONFIG_PREFIX + key + "/" + RATIO, Double.class).orElse(DEFAULT_RATIO);
+        int capacity = config.getOptionalValue(CONFIG_PREFIX + key + "/" + CAPACITY, Integer.class).orElse(DEFAULT_CAPACITY);
+        if (ratio < 0 || capacity < 0) {
+            throw new FaultToleranceDefinitionException("Invalid retry budget " + key + " : ratio and capacity shouldn't be lower than 0");
+        }
+        return new RetryBudget(key, ratio, capacity);
+    }
+
+    /**
+     *
+     * @param key
+     * @param ratio the number of retries allowed per successful invocation
+     * @param capacity the maximum number of retries which may be spent in a burst
+     */
+    RetryBudget(String key, double ratio, int capacity) {
+        this.key = key;
+        this.deposit = Math.round(ratio * TOKEN);
+        this.capacity = capacity * TOKEN;
+        this.balance = new AtomicLong(this.capacity);
+    }
+
+    /**
+     * Record a successful invocation.
+     */
+    void deposit() {
+        if (deposit == 0) {
+            return;
+        }
+        long current;
+        do {
+            current = balance.get();
+            if (current >= capacity) {
+                // A healthy dependency keeps the bucket full - avoid the write
+                return;
+            }
+        } while (!balance.compareAndSet(current, Math.min(capacity, current + deposit)));
+    }
+
+    /**
+     *
+     * @return {@code true} if a retry may be performed, {@code false} if the budget is exhausted
+     */
+    boolean tryWithdraw() {
+        long current;
+        do {
+            current = balance.get();
+            if (current < TOKEN) {
+                return false;
+            }
+        } while (!balance.compareAndSet(current, current - TOKEN));
+        return true;
+    }
+
+    String getKey() {
+        return key;
+    }
+
+    @Override
+    public String toString() {
+        return "RetryBudget [key=" + key + ", balance=" + (double) balance.get() / TOKEN + "]";
+    }
+
+    private final String key;
+
+    private final long deposit;
+
+    private final long capacity;
+
+    private final AtomicLong balance;
+
+}
@@ -15,35 +15,44 @@
  */
 package org.wildfly.swarm.microprofile.faulttolerance;
 
-import java.time.Duration;
-import java.util.Arrays;
+import java.util.concurrent.ThreadLocalRandom;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
 
+import org.jboss.logging.Logger;
+import org.wildfly.swarm.microprofile.faulttolerance.config.Backoff;
 import org.wildfly.swarm.microprofile.faulttolerance.config.RetryConfig;
 
 class RetryContext {
 
-    private final RetryConfig config;
+    private static final Logger LOGGER = Logger.getLogger(RetryContext.class);
+
+    private final RetryConfig.Snapshot config;
 
     private final AtomicInteger remainingAttempts;
 
     private final long start;
 
-    private final long maxDuration;
+    // Null if the retries are not budgeted
+    private final RetryBudget budget;
+
+    // The following fields are never accessed concurrently - attempts of an invocation are sequential
 
-    private final long delay;
+    private int retries;
 
-    RetryContext(RetryConfig config) {
+    private long previousDelay;
+
+    /**
+     *
+     * @param config
+     * @param budget may be {@code null}
+     */
+    RetryContext(RetryConfig.Snapshot config, RetryBudget budget) {
         this.config = config;
+        this.budget = budget;
         this.start = System.nanoTime();
-        this.remainingAttempts = new AtomicInteger(config.<Integer> get(RetryConfig.MAX_RETRIES) + 1);
-        this.maxDuration = Duration.of(config.get(RetryConfig.MAX_DURATION), config.get(RetryConfig.DURATION_UNIT)).toNanos();
-        this.delay = Duration.of(config.get(RetryConfig.DELAY), config.get(RetryConfig.DELAY_UNIT)).toMillis();
-    }
-
-    public RetryConfig getConfig() {
-        return config;
+        this.remainingAttempts = new AtomicInteger(config.getMaxRetries() + 1);
+        this.previousDelay = config.getDelayMillis();
     }
 
     public void doRetry() {
@@ -55,35 +64,59 @@ class RetryContext {
     }
 
     boolean shouldRetryOn(Exception exception, long time) {
-        return
+        boolean shouldRetry =
         // There are some remaining attempts left
         shouldRetry()
-                // The given exception should not abort execution
-                && (config.getAbortOn().length == 0 || Arrays.stream(config.getAbortOn()).noneMatch(ex -> ex.isAssignableFrom(exception.getClass())))
-                // We should retry on the given exception
-                && retryOn(exception)
+                // We should retry on the given exception and it should not abort execution
+                && config.getRetryOn().matches(exception)
                 // Once the duration is reached, no more retries should be performed
-                && (time - start <= maxDuration);
-    }
-
-    private boolean retryOn(Exception exception) {
-        Class<?>[] retryOn = config.getRetryOn();
-        if (retryOn.length == 0) {
+                && (time - start <= config.getMaxDurationNanos());
+        // The budget is checked last so that a token is only spent on an actual retry
+        if (shouldRetry && budget != null && !budget.tryWithdraw()) {
+            LOGGER.debugf("Retry budget %s exhausted, retry skipped", budget.getKey());
             return false;
         }
-        if (retryOn.length == 1 && retryOn[0].equals(Exception.class)) {
-            // By default, retry on any exception
-            return true;
+        return shouldRetry;
+    }
+
+    /**
+     * Record a successful invocation, i.e. deposit to the retry budget.
+     */
+    void succeeded() {
+        if (budget != null) {
+            budget.deposit();
         }
-        return Arrays.stream(retryOn).anyMatch(ex -> ex.isAssignableFrom(exception.getClass()));
     }
 
     void delayIfNeeded() throws InterruptedException {
-        if (delay > 0) {
-            long jitterBase = config.getJitter();
-            long jitter = (long) (Math.random() * ((jitterBase * 2) + 1)) - jitterBase; // random number between -jitter and +jitter
-            TimeUnit.MILLISECONDS.sleep(delay + Duration.of(jitter, config.getJitterDelayUnit()).toMillis());
+        long nextDelay = nextDelay();
+        if (nextDelay > 0) {
+            TimeUnit.MILLISECONDS.sleep(nextDelay);
+        }
+    }
+
+    /**
+     *
+     * @return the delay in milliseconds before the next attempt
+     */
+    long nextDelay() {
+        long delay = config.getDelayMillis();
+        if (delay <= 0) {
+            return 0;
+        }
+        Backoff backoff = config.getBackoff();
+        long nextDelay = backoff.nextDelay(delay, config.getMaxDelayMillis(), retries++, previousDelay);
+        previousDelay = nextDelay;
+        if (backoff.isJittered()) {
+            long jitterBase = config.getJitterNanos();
+            if (jitterBase > 0 && jitterBase < Long.MAX_VALUE) {
+                // Random number between -jitter and +jitter
+                long jitter = TimeUnit.NANOSECONDS.toMillis(ThreadLocalRandom.current().nextLong(-jitterBase, jitterBase + 1));
+                nextDelay = jitter > 0 && nextDelay > Long.MAX_VALUE - jitter ? Long.MAX_VALUE : nextDelay + jitter;
+            }
         }
+        // The jitter must not exceed the cap either
+        return Math.max(0, Math.min(nextDelay, config.getMaxDelayMillis()));
     }
 
     @Override
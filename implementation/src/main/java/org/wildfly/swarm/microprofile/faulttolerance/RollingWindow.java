@@ -0,0 +1,41 @@
+/*
+ * Copyright 2017 Red Hat, Inc, and individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.wildfly.swarm.microprofile.faulttolerance;
+
+/**
+ * Tracks the outcomes of recent executions of a circuit breaker in the CLOSED state. Implementations must be thread-safe and should not block.
+ *
+ * @see SynchronousCircuitBreaker
+ */
+interface RollingWindow {
+
+    void recordSuccess();
+
+    void recordFailure();
+
+    /**
+     *
+     * @return {@code true} if the window contains enough executions to evaluate the failure ratio
+     */
+    boolean isVolumeThresholdReached();
+
+    /**
+     *
+     * @return the ratio of failures among the executions in the window
+     */
+    double getFailureRatio();
+
+}
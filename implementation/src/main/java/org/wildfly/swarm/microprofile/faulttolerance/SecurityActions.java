@@ -53,6 +53,13 @@ final class SecurityActions {
         });
     }
 
+    static ClassLoader getContextClassLoader() {
+        if (System.getSecurityManager() == null) {
+            return Thread.currentThread().getContextClassLoader();
+        }
+        return AccessController.doPrivileged((PrivilegedAction<ClassLoader>) () -> Thread.currentThread().getContextClassLoader());
+    }
+
     static void setAccessible(final AccessibleObject accessibleObject) {
         if (System.getSecurityManager() == null) {
             accessibleObject.setAccessible(true);
@@ -0,0 +1,90 @@
+/*
+ * Copyright 2017 Red Hat, Inc, and individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.wildfly.swarm.microprofile.faulttolerance;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+
+/**
+ * An asynchronous bulkhead enforced by semaphores instead of the size of a thread pool. This is useful if the delegate creates a new thread per task, e.g. a
+ * virtual thread.
+ * <p>
+ * At most {@code value} tasks are executed concurrently and at most {@code waitingTaskQueue} tasks wait for a permit; any other task is rejected with
+ * {@link RejectedExecutionException}. A waiting task occupies a thread of the delegate, which is cheap for a virtual thread.
+ * </p>
+ */
+final class SemaphoreBulkheadExecutor implements Executor {
+
+    /**
+     *
+     * @param delegate
+     * @param value the maximum number of concurrent executions
+     * @param waitingTaskQueue the maximum number of waiting tasks
+     */
+    SemaphoreBulkheadExecutor(Executor delegate, int value, int waitingTaskQueue) {
+        this.delegate = delegate;
+        this.value = value;
+        this.capacity = value + waitingTaskQueue;
+        this.executions = new Semaphore(value);
+        this.admissions = new Semaphore(capacity);
+    }
+
+    @Override
+    public void execute(Runnable command) {
+        if (!admissions.tryAcquire()) {
+            throw new RejectedExecutionException("Bulkhead queue is full");
+        }
+        try {
+            delegate.execute(() -> {
+                try {
+                    executions.acquireUninterruptibly();
+                    try {
+                        command.run();
+                    } finally {
+                        executions.release();
+                    }
+                } finally {
+                    admissions.release();
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            admissions.release();
+            throw e;
+        }
+    }
+
+    /**
+     *
+     * @return the number of tasks waiting for a permit
+     */
+    int getQueueSize() {
+        int admitted = capacity - admissions.availablePermits();
+        int running = value - executions.availablePermits();
+        return Math.max(0, admitted - running);
+    }
+
+    private final Executor delegate;
+
+    private final int value;
+
+    private final int capacity;
+
+    private final Semaphore executions;
+
+    private final Semaphore admissions;
+
+}
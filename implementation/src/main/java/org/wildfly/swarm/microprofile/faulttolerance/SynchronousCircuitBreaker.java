@@ -19,11 +19,9 @@ import static org.wildfly.swarm.microprofile.faulttolerance.SynchronousCircuitBr
 import static org.wildfly.swarm.microprofile.faulttolerance.SynchronousCircuitBreaker.Status.HALF_OPEN;
 import static org.wildfly.swarm.microprofile.faulttolerance.SynchronousCircuitBreaker.Status.OPEN;
 
-import java.time.Instant;
-import java.time.temporal.ChronoUnit;
 import java.util.concurrent.atomic.AtomicInteger;
-import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
 
 import org.jboss.logging.Logger;
 import org.wildfly.swarm.microprofile.faulttolerance.config.CircuitBreakerConfig;
@@ -33,6 +31,16 @@ import com.netflix.hystrix.HystrixCircuitBreaker;
 /**
  * This is an implementation of the HystrixCircuitBreaker that is expected to be used synchronously by the HystrixCommand implementation to track the state of
  * the circuit. This is needed for the current TCK tests as monitoring circuit state in a background thread does not work with the TCK expectations.
+ * <p>
+ * The implementation is lock-free. The status, the time the circuit was opened and the counters of the current status form an immutable {@link State} which is
+ * replaced atomically on every transition. Therefore, counters are reset implicitly and results reported concurrently with a transition can never corrupt the
+ * new state.
+ * </p>
+ * <p>
+ * In the CLOSED state, the failure ratio is evaluated over a {@link RollingWindow}, so that old successes do not dilute recent failures. By default, the
+ * window covers the last {@code requestVolumeThreshold} executions. If {@link CircuitBreakerConfig#ROLLING_WINDOW} is set, it covers the executions of the
+ * given number of last seconds instead.
+ * </p>
  *
  * @see HystrixCommandInterceptor#SYNC_CIRCUIT_BREAKER_KEY
  */
@@ -45,13 +53,9 @@ class SynchronousCircuitBreaker implements HystrixCircuitBreaker {
     }
 
     SynchronousCircuitBreaker(CircuitBreakerConfig config) {
-        this.config = config;
-        this.status = new AtomicReference<>(CLOSED);
-        this.circuitOpenedAt = new AtomicLong(-1);
-        this.successCount = new AtomicInteger(0);
-        this.failureCount = new AtomicInteger(0);
-        this.halfOpenAttempts = new AtomicInteger(0);
+        this.config = config.getSnapshot();
         this.id = config.getMethodInfo();
+        this.state = new AtomicReference<>(newClosedState());
     }
 
     @Override
@@ -65,139 +69,170 @@ class SynchronousCircuitBreaker implements HystrixCircuitBreaker {
     }
 
     @Override
-    public synchronized boolean isOpen() {
-        return circuitOpenedAt.get() >= 0;
+    public boolean isOpen() {
+        return state.get().status != CLOSED;
     }
 
     @Override
-    public synchronized boolean allowRequest() {
+    public boolean allowRequest() {
         // Allow next request if:
         // 1. circuit is CLOSED
         // 2. circuit is OPEN and specified delay passed
         // 3. circuit is HALF_OPEN and next attempt is allowed
-        switch (status.get()) {
+        State current = state.get();
+        switch (current.status) {
             case CLOSED:
                 return true;
             case HALF_OPEN:
-                return isHalfOpenAttemptAllowed();
+                return current.halfOpenAttempts.get() < config.getSuccessThreshold();
             case OPEN:
-                return isAfterDelay();
+                return isAfterDelay(current);
             default:
                 return false;
         }
     }
 
     @Override
-    public synchronized boolean attemptExecution() {
+    public boolean attemptExecution() {
         // Allow next execution if:
         // 1. circuit is CLOSED
         // 2. circuit is HALF_OPEN and next attempt is allowed
         // 3. circuit is OPEN and specified delay passed - transition to HALF_OPEN
-        switch (status.get()) {
-            case CLOSED:
-                return true;
-            case HALF_OPEN:
-                if (isHalfOpenAttemptAllowed()) {
-                    halfOpenAttempts.incrementAndGet();
+        while (true) {
+            State current = state.get();
+            switch (current.status) {
+                case CLOSED:
                     return true;
-                }
-                return false;
-            case OPEN:
-                if (isAfterDelay()) {
-                    LOGGER.debugf("OPEN >> HALF_OPEN [id:%s]", id);
-                    status.set(HALF_OPEN);
-                    halfOpenAttempts.set(1);
-                    resetCounts();
-                    return true;
-                }
-                return false;
-            default:
-                return false;
+                case HALF_OPEN:
+                    return current.tryHalfOpenAttempt(config.getSuccessThreshold());
+                case OPEN:
+                    if (!isAfterDelay(current)) {
+                        return false;
+                    }
+                    // The first attempt is reserved for the thread which performs the transition
+                    if (state.compareAndSet(current, new State(HALF_OPEN, current.openedAt, 1, null))) {
+                        LOGGER.debugf("OPEN >> HALF_OPEN [id:%s]", id);
+                        return true;
+                    }
+                    // Lost the race - evaluate the new state
+                    break;
+                default:
+                    return false;
+            }
         }
     }
 
-    synchronized void executionSucceeded() {
-        successCount.incrementAndGet();
+    void executionSucceeded() {
+        State current = state.get();
+        if (CLOSED == current.status) {
+            current.window.recordSuccess();
+            return;
+        }
+        current.successCount.increment();
         // Transition to CLOSED if HALF_OPEN and successThreshold reached
-        if (HALF_OPEN == status.get() && isSuccessThresholdReached()) {
+        if (HALF_OPEN == current.status && isSuccessThresholdReached(current) && state.compareAndSet(current, newClosedState())) {
             LOGGER.debugf("HALF_OPEN >> CLOSED [id:%s]", id);
-            status.set(CLOSED);
-            circuitOpenedAt.set(-1);
-            resetCounts();
         }
     }
 
-    synchronized void executionFailed() {
-        failureCount.incrementAndGet();
-        // Transition to OPEN if HALF_OPEN
-        // Transition to OPEN if CLOSED and failure threshold reached
-        Status current = status.get();
-        if (HALF_OPEN == current || (CLOSED == current && isFailureThresholdReached())) {
-            LOGGER.debugf("%s >> OPEN [id:%s]", current, id);
-            status.set(OPEN);
-            circuitOpenedAt.set(System.currentTimeMillis());
-            resetCounts();
+    /**
+     * Only exceptions which match {@link CircuitBreakerConfig#FAIL_ON} are considered failures. Any other exception, e.g. a validation error thrown by the
+     * business method, is recorded as a success.
+     *
+     * @param failure
+     */
+    void executionFailed(Throwable failure) {
+        if (config.getFailOn().matches(failure)) {
+            executionFailed();
+        } else {
+            executionSucceeded();
         }
     }
 
-    private boolean isAfterDelay() {
-        long openedAt = circuitOpenedAt.get();
-        long delay = config.get(CircuitBreakerConfig.DELAY);
-        if (delay == 0) {
-            return true;
+    void executionFailed() {
+        State current = state.get();
+        if (CLOSED == current.status) {
+            current.window.recordFailure();
         }
-        ChronoUnit delayUnit = config.get(CircuitBreakerConfig.DELAY_UNIT);
-        long elapsed;
-        if (delayUnit.equals(ChronoUnit.MILLIS)) {
-            elapsed = System.currentTimeMillis() - openedAt;
-        } else {
-            Instant start = Instant.ofEpochMilli(openedAt);
-            Instant now = Instant.now();
-            elapsed = delayUnit.between(start, now);
+        // Transition to OPEN if HALF_OPEN
+        // Transition to OPEN if CLOSED and failure threshold reached
+        if ((HALF_OPEN == current.status || (CLOSED == current.status && isFailureThresholdReached(current)))
+                && state.compareAndSet(current, new State(OPEN, System.nanoTime(), 0, null))) {
+            LOGGER.debugf("%s >> OPEN [id:%s]", current.status, id);
         }
-        return elapsed >= delay;
     }
 
-    private boolean isFailureThresholdReached() {
-        int requestCount = getRequestCount();
-        int requestVolumeThreshold = config.get(CircuitBreakerConfig.REQUEST_VOLUME_THRESHOLD);
-        if (requestCount < requestVolumeThreshold) {
+    private boolean isAfterDelay(State current) {
+        long delay = config.getDelayNanos();
+        return delay == 0 || System.nanoTime() - current.openedAt >= delay;
+    }
+
+    private boolean isFailureThresholdReached(State current) {
+        if (!current.window.isVolumeThresholdReached()) {
             return false;
         }
-        double failureCheck = failureCount.get() / requestCount;
-        double failureRatio = config.get(CircuitBreakerConfig.FAILURE_RATIO);
+        double failureCheck = current.window.getFailureRatio();
+        double failureRatio = config.getFailureRatio();
         return (failureCheck >= failureRatio) || (failureRatio <= 0 && failureCheck == 1);
     }
 
-    private boolean isSuccessThresholdReached() {
-        return successCount.get() >= config.get(CircuitBreakerConfig.SUCCESS_THRESHOLD, Integer.class);
+    private boolean isSuccessThresholdReached(State current) {
+        return current.successCount.sum() >= config.getSuccessThreshold();
     }
 
-    private boolean isHalfOpenAttemptAllowed() {
-        return halfOpenAttempts.get() < config.get(CircuitBreakerConfig.SUCCESS_THRESHOLD, Integer.class);
+    private State newClosedState() {
+        int requestVolumeThreshold = config.getRequestVolumeThreshold();
+        int rollingWindow = config.getRollingWindow();
+        RollingWindow window;
+        if (rollingWindow > 0) {
+            window = new TimeBasedWindow(rollingWindow, requestVolumeThreshold);
+        } else {
+            // The window always covers at least the last execution
+            window = new CountBasedWindow(Math.max(1, requestVolumeThreshold));
+        }
+        return new State(CLOSED, -1, 0, window);
     }
 
-    private int getRequestCount() {
-        return successCount.get() + failureCount.get();
-    }
+    private final AtomicReference<State> state;
 
-    private void resetCounts() {
-        successCount.set(0);
-        failureCount.set(0);
-    }
+    private final CircuitBreakerConfig.Snapshot config;
 
-    private final AtomicReference<Status> status;
+    private final String id;
 
-    private final AtomicLong circuitOpenedAt;
+    private static final class State {
 
-    private final CircuitBreakerConfig config;
+        State(Status status, long openedAt, int halfOpenAttempts, RollingWindow window) {
+            this.status = status;
+            this.openedAt = openedAt;
+            this.window = window;
+            this.successCount = new LongAdder();
+            this.halfOpenAttempts = new AtomicInteger(halfOpenAttempts);
+        }
 
-    private final AtomicInteger successCount;
+        boolean tryHalfOpenAttempt(int maxAttempts) {
+            int attempts;
+            do {
+                attempts = halfOpenAttempts.get();
+                if (attempts >= maxAttempts) {
+                    return false;
+                }
+            } while (!halfOpenAttempts.compareAndSet(attempts, attempts + 1));
+            return true;
+        }
 
-    private final AtomicInteger failureCount;
+        private final Status status;
 
-    private final AtomicInteger halfOpenAttempts;
+        // System.nanoTime() when the circuit was opened, -1 if CLOSED
+        private final long openedAt;
 
-    private final String id;
+        // null unless CLOSED
+        private final RollingWindow window;
+
+        // Only used if HALF_OPEN
+        private final LongAdder successCount;
+
+        private final AtomicInteger halfOpenAttempts;
+
+    }
 
-}
\ No newline at end of file
+}
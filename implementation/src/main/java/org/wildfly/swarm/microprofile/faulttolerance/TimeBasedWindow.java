@@ -0,0 +1,136 @@
+/*
+ * Copyright 2017 Red Hat, Inc, and individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.wildfly.swarm.microprofile.faulttolerance;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * A rolling window over the outcomes of the executions of the last N seconds, tracked as one bucket per second.
+ * <p>
+ * Buckets are stored in a ring indexed by the second they belong to. A stale bucket is replaced with a CAS by the first execution of a new second, so at most
+ * one bucket is allocated per second and recording never blocks. Outcomes older than the window are ignored when the failure ratio is evaluated, i.e. a rarely
+ * used operation does not stay "hot" from failures recorded long ago.
+ * </p>
+ */
+final class TimeBasedWindow implements RollingWindow {
+
+    private static final long NANOS_PER_SECOND = TimeUnit.SECONDS.toNanos(1);
+
+    /**
+     *
+     * @param seconds the number of seconds the window covers, must be positive
+     * @param requestVolumeThreshold the minimum number of executions in the window required to evaluate the failure ratio
+     */
+    TimeBasedWindow(int seconds, int requestVolumeThreshold) {
+        if (seconds < 1) {
+            throw new IllegalArgumentException("Window size must be positive: " + seconds);
+        }
+        this.buckets = new AtomicReferenceArray<>(seconds);
+        this.seconds = seconds;
+        this.requestVolumeThreshold = requestVolumeThreshold;
+        this.start = System.nanoTime();
+    }
+
+    @Override
+    public void recordSuccess() {
+        currentBucket().successes.incrementAndGet();
+    }
+
+    @Override
+    public void recordFailure() {
+        currentBucket().failures.incrementAndGet();
+    }
+
+    @Override
+    public boolean isVolumeThresholdReached() {
+        long now = currentSecond();
+        long requests = 0;
+        for (int i = 0; i < seconds; i++) {
+            Bucket bucket = buckets.get(i);
+            if (isInWindow(bucket, now)) {
+                requests += bucket.successes.get() + bucket.failures.get();
+            }
+        }
+        return requests >= requestVolumeThreshold;
+    }
+
+    @Override
+    public double getFailureRatio() {
+        long now = currentSecond();
+        long failures = 0;
+        long requests = 0;
+        for (int i = 0; i < seconds; i++) {
+            Bucket bucket = buckets.get(i);
+            if (isInWindow(bucket, now)) {
+                long bucketFailures = bucket.failures.get();
+                failures += bucketFailures;
+                requests += bucket.successes.get() + bucketFailures;
+            }
+        }
+        return requests == 0 ? 0 : (double) failures / requests;
+    }
+
+    private Bucket currentBucket() {
+        long second = currentSecond();
+        int index = (int) (second % seconds);
+        while (true) {
+            Bucket bucket = buckets.get(index);
+            if (bucket != null && bucket.second >= second) {
+                // A thread which read the clock later may already have replaced the bucket - record into the newer one
+                return bucket;
+            }
+            Bucket next = new Bucket(second);
+            if (buckets.compareAndSet(index, bucket, next)) {
+                return next;
+            }
+        }
+    }
+
+    private boolean isInWindow(Bucket bucket, long now) {
+        return bucket != null && now - bucket.second < seconds;
+    }
+
+    private long currentSecond() {
+        return (System.nanoTime() - start) / NANOS_PER_SECOND;
+    }
+
+    private final AtomicReferenceArray<Bucket> buckets;
+
+    private final int seconds;
+
+    private final int requestVolumeThreshold;
+
+    private final long start;
+
+    private static final class Bucket {
+
+        Bucket(long second) {
+            this.second = second;
+            this.successes = new AtomicLong();
+            this.failures = new AtomicLong();
+        }
+
+        private final long second;
+
+        private final AtomicLong successes;
+
+        private final AtomicLong failures;
+
+    }
+
+}
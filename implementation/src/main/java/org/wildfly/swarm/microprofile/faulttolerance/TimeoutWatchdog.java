@@ -0,0 +1,59 @@
+/*
+ * Copyright 2017 Red Hat, Inc, and individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.wildfly.swarm.microprofile.faulttolerance;
+
+/**
+ * Interrupts the executing thread once the timeout elapses, unless the execution completed in the meantime.
+ * <p>
+ * The executing thread must always call {@link #complete()} when the execution completes. A pending interrupt is cleared so that it does not leak into
+ * subsequent work performed by the same thread.
+ * </p>
+ */
+final class TimeoutWatchdog implements Runnable {
+
+    TimeoutWatchdog(Thread executingThread) {
+        this.executingThread = executingThread;
+    }
+
+    @Override
+    public synchronized void run() {
+        if (!completed) {
+            timedOut = true;
+            executingThread.interrupt();
+        }
+    }
+
+    /**
+     * Must be called by the executing thread.
+     *
+     * @return {@code true} if the execution timed out
+     */
+    synchronized boolean complete() {
+        completed = true;
+        if (timedOut) {
+            // Clear the interrupted status
+            Thread.interrupted();
+        }
+        return timedOut;
+    }
+
+    private final Thread executingThread;
+
+    private boolean completed;
+
+    private boolean timedOut;
+
+}
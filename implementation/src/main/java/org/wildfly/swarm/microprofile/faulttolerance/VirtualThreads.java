@@ -0,0 +1,58 @@
+/*
+ * Copyright 2017 Red Hat, Inc, and individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.wildfly.swarm.microprofile.faulttolerance;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.eclipse.microprofile.config.ConfigProvider;
+import org.jboss.logging.Logger;
+
+/**
+ * Support for virtual threads. The implementation is compiled against Java 8, therefore the JDK API is looked up reflectively.
+ *
+ * @see ExecutionEngine#VIRTUAL_THREADS_KEY
+ */
+final class VirtualThreads {
+
+    private static final Logger LOGGER = Logger.getLogger(VirtualThreads.class);
+
+    private VirtualThreads() {
+    }
+
+    /**
+     *
+     * @return a new virtual-thread-per-task executor, or {@code null} if virtual threads are not enabled or not supported by the JDK
+     */
+    static ExecutorService newExecutorIfEnabled() {
+        if (!ConfigProvider.getConfig().getOptionalValue(ExecutionEngine.VIRTUAL_THREADS_KEY, Boolean.class).orElse(false)) {
+            return null;
+        }
+        try {
+            Method factory = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+            return (ExecutorService) factory.invoke(null);
+        } catch (NoSuchMethodException e) {
+            LOGGER.warnf("Virtual threads are not supported by the JDK %s - platform threads are used", System.getProperty("java.version"));
+        } catch (IllegalAccessException | InvocationTargetException e) {
+            // E.g. preview features are not enabled
+            LOGGER.warnf(e, "Virtual threads cannot be used - platform threads are used");
+        }
+        return null;
+    }
+
+}
@@ -0,0 +1,141 @@
+/*
+ * Copyright 2017 Red Hat, Inc, and individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.wildfly.swarm.microprofile.faulttolerance.config;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Backoff strategies of {@code @Retry}. The strategy is an implementation-specific parameter, see also {@link RetryConfig#BACKOFF}.
+ * <p>
+ * All delays are in the same unit. The base delay is {@code Retry.delay()}, the cap is {@link RetryConfig#MAX_DELAY}.
+ * </p>
+ */
+public enum Backoff {
+
+    /**
+     * The base delay plus the uniform {@code Retry.jitter()}, i.e. the behavior defined by the specification.
+     */
+    CONSTANT("constant", true) {
+        @Override
+        public long nextDelay(long baseDelay, long maxDelay, int retry, long previousDelay) {
+            return Math.min(baseDelay, maxDelay);
+        }
+    },
+    /**
+     * {@code baseDelay * 2^retry}, capped, plus the uniform jitter.
+     */
+    EXPONENTIAL("exponential", true) {
+        @Override
+        public long nextDelay(long baseDelay, long maxDelay, int retry, long previousDelay) {
+            return exponential(baseDelay, maxDelay, retry);
+        }
+    },
+    /**
+     * A random delay between 0 and the capped exponential delay.
+     */
+    FULL_JITTER("fullJitter", false) {
+        @Override
+        public long nextDelay(long baseDelay, long maxDelay, int retry, long previousDelay) {
+            long upper = exponential(baseDelay, maxDelay, retry);
+            // The bound is exclusive, a saturated delay must not overflow
+            return ThreadLocalRandom.current().nextLong(upper == Long.MAX_VALUE ? Long.MAX_VALUE : upper + 1);
+        }
+    },
+    /**
+     * A random delay between the base delay and three times the previous delay, capped.
+     */
+    DECORRELATED_JITTER("decorrelatedJitter", false) {
+        @Override
+        public long nextDelay(long baseDelay, long maxDelay, int retry, long previousDelay) {
+            long upper = previousDelay > Long.MAX_VALUE / 3 ? Long.MAX_VALUE : Math.max(baseDelay, previousDelay * 3);
+            long delay = upper > baseDelay ? ThreadLocalRandom.current().nextLong(baseDelay, upper) : baseDelay;
+            return Math.min(delay, maxDelay);
+        }
+    },
+    /**
+     * {@code baseDelay * fib(retry + 1)}, i.e. 1, 1, 2, 3, 5... multiples of the base delay, capped, plus the uniform jitter.
+     */
+    FIBONACCI("fibonacci", true) {
+        @Override
+        public long nextDelay(long baseDelay, long maxDelay, int retry, long previousDelay) {
+            long previous = 0;
+            long current = 1;
+            for (int i = 0; i < retry; i++) {
+                long next = previous + current;
+                previous = current;
+                current = next;
+                if (current > maxDelay / baseDelay) {
+                    return maxDelay;
+                }
+            }
+            return Math.min(baseDelay * current, maxDelay);
+        }
+    };
+
+    /**
+     *
+     * @param value
+     * @return the strategy for the given config value
+     * @throws IllegalArgumentException if no such strategy exists
+     */
+    public static Backoff fromValue(String value) {
+        for (Backoff backoff : values()) {
+            if (backoff.value.equals(value)) {
+                return backoff;
+            }
+        }
+        throw new IllegalArgumentException("Unknown backoff strategy: " + value);
+    }
+
+    private static long exponential(long baseDelay, long maxDelay, int retry) {
+        if (retry >= Long.SIZE - 1 || baseDelay > (maxDelay >> retry)) {
+            return maxDelay;
+        }
+        return baseDelay << retry;
+    }
+
+    Backoff(String value, boolean jittered) {
+        this.value = value;
+        this.jittered = jittered;
+    }
+
+    /**
+     *
+     * @return {@code true} if the uniform {@code Retry.jitter()} should be added to the delay
+     */
+    public boolean isJittered() {
+        return jittered;
+    }
+
+    public String getValue() {
+        return value;
+    }
+
+    /**
+     *
+     * @param baseDelay the positive base delay
+     * @param maxDelay the cap
+     * @param retry the number of retries performed so far
+     * @param previousDelay the previous delay, or the base delay for the first retry
+     * @return the delay before the next retry, excluding the uniform jitter
+     */
+    public abstract long nextDelay(long baseDelay, long maxDelay, int retry, long previousDelay);
+
+    private final String value;
+
+    private final boolean jittered;
+
+}
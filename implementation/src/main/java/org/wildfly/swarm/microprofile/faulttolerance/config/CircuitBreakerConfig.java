@@ -47,6 +47,15 @@ public class CircuitBreakerConfig extends GenericConfig<CircuitBreaker> {
 
     public static final String SYNCHRONOUS_STATE_VALIDATION = "synchronousStateValidation";
 
+    /**
+     * Implementation-specific parameter. If greater than 0, the failure ratio is evaluated over the executions of the given number of last seconds instead of
+     * the last {@code requestVolumeThreshold} executions. In that case, {@code requestVolumeThreshold} is the minimum number of executions in the window.
+     * <p>
+     * E.g. {@code com.acme.Service/ping/CircuitBreaker/rollingWindow=10}.
+     * </p>
+     */
+    public static final String ROLLING_WINDOW = "rollingWindow";
+
     private static final Logger LOGGER =  Logger.getLogger(CircuitBreakerConfig.class);
 
     public CircuitBreakerConfig(Method method) {
@@ -73,9 +82,44 @@ public class CircuitBreakerConfig extends GenericConfig<CircuitBreaker> {
         if (successThreshold < 1) {
             throw new FaultToleranceDefinitionException("Invalid CircuitBreaker on " + getMethodInfo() + " : successThreshold shouldn't be lower than 1");
         }
+        if (get(ROLLING_WINDOW, Integer.class) < 0) {
+            throw new FaultToleranceDefinitionException("Invalid CircuitBreaker on " + getMethodInfo() + " : rollingWindow shouldn't be lower than 0");
+        }
         if (!getConfig().getOptionalValue(HystrixCommandInterceptor.SYNC_CIRCUIT_BREAKER_KEY, Boolean.class).orElse(true) && successThreshold > 1) {
             LOGGER.warnf("Synchronous circuit breaker disabled - successThreshold of value greater than 1 is not supported: " + getMethodInfo());
         }
+        // Resolve the validated values once, at deployment time
+        snapshot = new Snapshot(this);
+    }
+
+    /**
+     * The snapshot is resolved once, i.e. subsequent changes of the config properties are not reflected.
+     *
+     * @return the immutable snapshot of the values used when the circuit breaker is executed
+     */
+    public Snapshot getSnapshot() {
+        Snapshot values = snapshot;
+        if (values == null) {
+            // A race only results in an equivalent snapshot being built twice
+            values = new Snapshot(this);
+            snapshot = values;
+        }
+        return values;
+    }
+
+    /**
+     * The classifier is built once, i.e. subsequent changes of {@code failOn} are not reflected.
+     *
+     * @return the classifier matching the exceptions which should be considered failures
+     */
+    public ExceptionClassifier getFailOnClassifier() {
+        ExceptionClassifier classifier = failOnClassifier;
+        if (classifier == null) {
+            // A race only results in an equivalent classifier being built twice
+            classifier = ExceptionClassifier.of(get(FAIL_ON));
+            failOnClassifier = classifier;
+        }
+        return classifier;
     }
 
     @Override
@@ -88,8 +132,19 @@ public class CircuitBreakerConfig extends GenericConfig<CircuitBreaker> {
         return keys2Type;
     }
 
+    @Override
+    protected Map<String, Object> getExtensionDefaults() {
+        return extensionDefaults;
+    }
+
+    private volatile ExceptionClassifier failOnClassifier;
+
+    private volatile Snapshot snapshot;
+
     private static Map<String, Class<?>> keys2Type = initKeys();
 
+    private static Map<String, Object> extensionDefaults = Collections.singletonMap(ROLLING_WINDOW, 0);
+
     private static Map<String, Class<?>> initKeys() {
         Map<String, Class<?>> keys = new HashMap<>();
         keys.put(DELAY, Long.class);
@@ -98,8 +153,68 @@ public class CircuitBreakerConfig extends GenericConfig<CircuitBreaker> {
         keys.put(FAILURE_RATIO, Double.class);
         keys.put(REQUEST_VOLUME_THRESHOLD, Integer.class);
         keys.put(SUCCESS_THRESHOLD, Integer.class);
-        keys.put(SYNCHRONOUS_STATE_VALIDATION, Boolean.class);
+        keys.put(ROLLING_WINDOW, Integer.class);
         return Collections.unmodifiableMap(keys);
     }
 
+    /**
+     * Immutable, primitive-typed values of a circuit breaker. Unlike {@link #get(String)}, reading a value does not involve any map lookup or unboxing.
+     */
+    public static final class Snapshot {
+
+        private Snapshot(CircuitBreakerConfig config) {
+            this.delayNanos = toNanos(config.get(DELAY, Long.class), config.get(DELAY_UNIT, ChronoUnit.class));
+            this.failureRatio = config.get(FAILURE_RATIO, Double.class);
+            this.requestVolumeThreshold = config.get(REQUEST_VOLUME_THRESHOLD, Integer.class);
+            this.successThreshold = config.get(SUCCESS_THRESHOLD, Integer.class);
+            this.rollingWindow = config.get(ROLLING_WINDOW, Integer.class);
+            this.failOn = config.getFailOnClassifier();
+        }
+
+        /**
+         *
+         * @return the delay after which an open circuit transitions to half-open, in nanoseconds
+         */
+        public long getDelayNanos() {
+            return delayNanos;
+        }
+
+        public double getFailureRatio() {
+            return failureRatio;
+        }
+
+        public int getRequestVolumeThreshold() {
+            return requestVolumeThreshold;
+        }
+
+        public int getSuccessThreshold() {
+            return successThreshold;
+        }
+
+        /**
+         *
+         * @return the rolling window in seconds or {@code 0} if the window covers the last {@code requestVolumeThreshold} executions
+         */
+        public int getRollingWindow() {
+            return rollingWindow;
+        }
+
+        public ExceptionClassifier getFailOn() {
+            return failOn;
+        }
+
+        private final long delayNanos;
+
+        private final double failureRatio;
+
+        private final int requestVolumeThreshold;
+
+        private final int successThreshold;
+
+        private final int rollingWindow;
+
+        private final ExceptionClassifier failOn;
+
+    }
+
 }
@@ -0,0 +1,92 @@
+/*
+ * Copyright 2017 Red Hat, Inc, and individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.wildfly.swarm.microprofile.faulttolerance.config;
+
+/**
+ * Decides whether an exception matches a set of exception types, e.g. {@code retryOn} and {@code abortOn} of {@code @Retry} or {@code failOn} of
+ * {@code @CircuitBreaker}.
+ * <p>
+ * The types are walked once per concrete exception class and the verdict is cached in a {@link ClassValue}. Repeated failures of the same type are therefore
+ * classified without allocation.
+ * </p>
+ */
+public final class ExceptionClassifier {
+
+    private static final Class<?>[] NONE = new Class<?>[0];
+
+    /**
+     *
+     * @param includes
+     * @return the classifier matching subtypes of any of the given types
+     */
+    public static ExceptionClassifier of(Class<?>[] includes) {
+        return new ExceptionClassifier(includes, NONE);
+    }
+
+    /**
+     *
+     * @param includes
+     * @param excludes take precedence over includes
+     * @return the classifier matching subtypes of any of the given types, unless the exception is a subtype of any of the excluded types
+     */
+    public static ExceptionClassifier of(Class<?>[] includes, Class<?>[] excludes) {
+        return new ExceptionClassifier(includes, excludes);
+    }
+
+    private ExceptionClassifier(Class<?>[] includes, Class<?>[] excludes) {
+        this.includes = includes.clone();
+        this.excludes = excludes.clone();
+        this.verdicts = new ClassValue<Boolean>() {
+            @Override
+            protected Boolean computeValue(Class<?> type) {
+                return classify(type);
+            }
+        };
+    }
+
+    /**
+     *
+     * @param exception
+     * @return {@code true} if the given exception matches
+     */
+    public boolean matches(Throwable exception) {
+        if (includes.length == 0) {
+            return false;
+        }
+        return verdicts.get(exception.getClass());
+    }
+
+    private boolean classify(Class<?> type) {
+        for (Class<?> exclude : excludes) {
+            if (exclude.isAssignableFrom(type)) {
+                return false;
+            }
+        }
+        for (Class<?> include : includes) {
+            if (include.isAssignableFrom(type)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private final Class<?>[] includes;
+
+    private final Class<?>[] excludes;
+
+    private final ClassValue<Boolean> verdicts;
+
+}
@@ -38,6 +38,14 @@ public class FallbackConfig extends GenericConfig<Fallback> {
 
     public static final String FALLBACK_METHOD = "fallbackMethod";
 
+    /**
+     * Implementation-specific parameter. The maximum number of idle fallback handler instances kept for reuse, e.g.
+     * {@code com.acme.Service/ping/Fallback/poolSize=4}. Only applies to handlers which are not beans with a normal scope, i.e. typically {@code @Dependent}
+     * handlers. A pooled instance services one invocation at a time, but it is not destroyed after the invocation. The default value {@code 0} means a new
+     * instance is created for every invocation.
+     */
+    public static final String POOL_SIZE = "poolSize";
+
     public FallbackConfig(Method method) {
         super(Fallback.class, method);
     }
@@ -64,6 +72,9 @@ public class FallbackConfig extends GenericConfig<Fallback> {
                         "Fallback method " + get(FALLBACK_METHOD) + " must have a return type assignable to " + method.getName());
             }
         }
+        if (get(POOL_SIZE, Integer.class) < 0) {
+            throw new FaultToleranceDefinitionException("Invalid @Fallback on " + getMethodInfo() + " : poolSize shouldn't be lower than 0");
+        }
         if (!Fallback.DEFAULT.class.equals(get(VALUE))) {
             Class<?> fbhc = get(VALUE);
             Type fallbackType = null;
@@ -93,12 +104,20 @@ public class FallbackConfig extends GenericConfig<Fallback> {
         return keys2Type;
     }
 
+    @Override
+    protected Map<String, Object> getExtensionDefaults() {
+        return extensionDefaults;
+    }
+
     private static Map<String, Class<?>> keys2Type = initKeys();
 
+    private static Map<String, Object> extensionDefaults = Collections.singletonMap(POOL_SIZE, 0);
+
     private static Map<String, Class<?>> initKeys() {
         Map<String, Class<?>> keys = new HashMap<>();
         keys.put(VALUE, Class.class);
         keys.put(FALLBACK_METHOD, String.class);
+        keys.put(POOL_SIZE, Integer.class);
         return Collections.unmodifiableMap(keys);
     }
 
@@ -17,6 +17,13 @@ package org.wildfly.swarm.microprofile.faulttolerance.config;
 
 import java.lang.annotation.Annotation;
 import java.lang.reflect.Method;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.CompletionStage;
 import java.util.concurrent.Future;
 import java.util.function.Function;
 
@@ -38,7 +45,7 @@ import org.eclipse.microprofile.faulttolerance.exceptions.FaultToleranceDefiniti
 public class FaultToleranceOperation {
 
     public static FaultToleranceOperation of(AnnotatedMethod<?> annotatedMethod) {
-        return new FaultToleranceOperation(annotatedMethod.getJavaMember(),
+        return new FaultToleranceOperation(annotatedMethod.getJavaMember(), annotatedMethod,
                 isAnnotated(Asynchronous.class, annotatedMethod),
                 getConfig(Bulkhead.class, annotatedMethod, BulkheadConfig::new),
                 getConfig(CircuitBreaker.class, annotatedMethod, CircuitBreakerConfig::new),
@@ -48,7 +55,7 @@ public class FaultToleranceOperation {
     }
 
     public static FaultToleranceOperation of(Method method) {
-        return new FaultToleranceOperation(method,
+        return new FaultToleranceOperation(method, null,
                 isAnnotated(Asynchronous.class, method),
                 getConfig(Bulkhead.class, method, BulkheadConfig::new),
                 getConfig(CircuitBreaker.class, method, CircuitBreakerConfig::new),
@@ -59,6 +66,9 @@ public class FaultToleranceOperation {
 
     private final Method method;
 
+    // Annotated method is optional
+    private final AnnotatedMethod<?> annotatedMethod;
+
     private final boolean async;
 
     private final BulkheadConfig bulkhead;
@@ -71,9 +81,10 @@ public class FaultToleranceOperation {
 
     private final TimeoutConfig timeout;
 
-    private FaultToleranceOperation(Method method, boolean async, BulkheadConfig bulkhead, CircuitBreakerConfig circuitBreaker, FallbackConfig fallback, RetryConfig retry,
-            TimeoutConfig timeout) {
+    private FaultToleranceOperation(Method method, AnnotatedMethod<?> annotatedMethod, boolean async, BulkheadConfig bulkhead, CircuitBreakerConfig circuitBreaker,
+            FallbackConfig fallback, RetryConfig retry, TimeoutConfig timeout) {
         this.method = method;
+        this.annotatedMethod = annotatedMethod;
         this.async = async;
         this.bulkhead = bulkhead;
         this.circuitBreaker = circuitBreaker;
@@ -82,10 +93,22 @@ public class FaultToleranceOperation {
         this.timeout = timeout;
     }
 
+    public Method getMethod() {
+        return method;
+    }
+
     public boolean isAsync() {
         return async;
     }
 
+    /**
+     *
+     * @return {@code true} if the operation is {@link Asynchronous} and returns {@link CompletionStage}
+     */
+    public boolean returnsCompletionStage() {
+        return async && CompletionStage.class.equals(method.getReturnType());
+    }
+
     public boolean hasBulkhead() {
         return bulkhead != null;
     }
@@ -134,8 +157,9 @@ public class FaultToleranceOperation {
      * Throws {@link FaultToleranceDefinitionException} if validation fails.
      */
     public boolean validate() {
-        if (async && !Future.class.equals(method.getReturnType())) {
-            throw new FaultToleranceDefinitionException("Invalid @Asynchronous on " + method + " : the return type must be java.util.concurrent.Future");
+        if (async && !Future.class.equals(method.getReturnType()) && !CompletionStage.class.equals(method.getReturnType())) {
+            throw new FaultToleranceDefinitionException(
+                    "Invalid @Asynchronous on " + method + " : the return type must be java.util.concurrent.Future or java.util.concurrent.CompletionStage");
         }
         if (bulkhead != null) {
             bulkhead.validate();
@@ -155,11 +179,66 @@ public class FaultToleranceOperation {
         return true;
     }
 
+    /**
+     * Config parameters are resolved again, i.e. the returned operation reflects the current values of the config properties. The returned operation is not
+     * validated.
+     *
+     * @return a new operation for the same method
+     */
+    public FaultToleranceOperation reload() {
+        return annotatedMethod != null ? of(annotatedMethod) : of(method);
+    }
+
+    /**
+     *
+     * @return the values of all config parameters, keyed by {@code <annotation>/<parameter>}
+     * @see GenericConfig#getValues()
+     */
+    public Map<String, Object> getConfigValues() {
+        Map<String, Object> values = new HashMap<>();
+        putValues(values, bulkhead);
+        putValues(values, circuitBreaker);
+        putValues(values, fallback);
+        putValues(values, retry);
+        putValues(values, timeout);
+        return values;
+    }
+
+    /**
+     *
+     * @param values the values of config parameters, as returned by {@link #getConfigValues()}
+     * @return the annotation types of the policies whose config parameters differ from the given values
+     */
+    public Set<Class<? extends Annotation>> getChangedPolicies(Map<String, Object> values) {
+        Set<Class<? extends Annotation>> changed = new HashSet<>();
+        for (GenericConfig<?> config : Arrays.asList(bulkhead, circuitBreaker, fallback, retry, timeout)) {
+            if (config != null) {
+                String prefix = config.getConfigType().getSimpleName() + "/";
+                for (Map.Entry<String, Object> entry : config.getValues().entrySet()) {
+                    if (!Objects.equals(entry.getValue(), values.get(prefix + entry.getKey()))) {
+                        changed.add(config.getConfigType());
+                        break;
+                    }
+                }
+            }
+        }
+        return changed;
+    }
+
     @Override
     public String toString() {
         return "FaultToleranceOperation [method=" + method.toGenericString() + "]";
     }
 
+    private static void putValues(Map<String, Object> values, GenericConfig<?> config) {
+        if (config != null) {
+            String prefix = config.getConfigType().getSimpleName() + "/";
+            for (Map.Entry<String, Object> entry : config.getValues().entrySet()) {
+                values.put(prefix + entry.getKey(), entry.getValue());
+            }
+        }
+    }
+
     private static <A extends Annotation, C extends GenericConfig<A>> C getConfig(Class<A> annotationType, AnnotatedMethod<?> annotatedMethod,
             Function<AnnotatedMethod<?>, C> function) {
         if (isAnnotated(annotationType, annotatedMethod)) {
@@ -20,6 +20,10 @@ import java.lang.annotation.ElementType;
 import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
 import java.security.PrivilegedActionException;
+import java.time.temporal.ChronoUnit;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.Map;
 import java.util.Optional;
 import java.util.concurrent.ConcurrentHashMap;
@@ -40,6 +44,13 @@ public abstract class GenericConfig<X extends Annotation> {
      */
     public static final String CONFIG_PARAMS_CACHE_KEY = "org_wildfly_swarm_microprofile_faulttolerance_configParamsCache";
 
+    /**
+     * This config property key can be used to reload config parameters while the application is running. If set to a value greater than 0, the parameters
+     * of all fault tolerance operations are polled with the given interval in milliseconds. The default value {@code 0} means the parameters are never
+     * reloaded.
+     */
+    public static final String CONFIG_RELOAD_INTERVAL_KEY = "org_wildfly_swarm_microprofile_faulttolerance_configReloadInterval";
+
     public GenericConfig(Class<X> annotationType, Method method) {
         this(method, null,
                 method.isAnnotationPresent(annotationType) ? method.getAnnotation(annotationType) : method.getDeclaringClass().getAnnotation(annotationType),
@@ -54,7 +65,7 @@ public abstract class GenericConfig<X extends Annotation> {
     }
 
     private GenericConfig(Method method, AnnotatedMethod<?> annotatedMethod, X annotation, ElementType annotationSource) {
-        this.method = annotatedMethod.getJavaMember();
+        this.method = method;
         this.annotatedMethod = annotatedMethod;
         this.annotation = annotation;
         this.annotationSource = annotationSource;
@@ -103,12 +114,33 @@ public abstract class GenericConfig<X extends Annotation> {
             // <annotation>/<parameter>
             value = config.getOptionalValue(getConfigType().getSimpleName() + "/" + key, expectedType);
         }
-        // annotation values
-        return value.isPresent() ? value.get() : getConfigFromAnnotation(key);
+        // annotation values or defaults of implementation-specific parameters
+        return value.isPresent() ? value.get() : getDefaultValue(key);
     }
 
     public abstract void validate();
 
+    /**
+     * Resolve all the parameters. Array values are converted to lists so that the values of two config instances can be compared with
+     * {@link Map#equals(Object)}.
+     *
+     * @return the parameter values
+     */
+    public Map<String, Object> getValues() {
+        Map<String, Object> result = new HashMap<>();
+        for (Map.Entry<String, Class<?>> entry : getKeysToType().entrySet()) {
+            Object value = get(entry.getKey(), entry.getValue());
+            result.put(entry.getKey(), value instanceof Object[] ? Arrays.asList((Object[]) value) : value);
+        }
+        return result;
+    }
+
+    @SuppressWarnings("unchecked")
+    private <U> U getDefaultValue(String key) {
+        Map<String, Object> defaults = getExtensionDefaults();
+        return defaults.containsKey(key) ? (U) defaults.get(key) : getConfigFromAnnotation(key);
+    }
+
     @SuppressWarnings("unchecked")
     private <U> U getConfigFromAnnotation(String key) {
         try {
@@ -131,6 +163,20 @@ public abstract class GenericConfig<X extends Annotation> {
         return annotatedMethod != null ? annotatedMethod.toString() : method.toGenericString();
     }
 
+    /**
+     *
+     * @param value
+     * @param unit
+     * @return the duration in nanoseconds, saturated to {@link Long#MAX_VALUE} if it cannot be represented
+     */
+    protected static long toNanos(long value, ChronoUnit unit) {
+        try {
+            return unit.getDuration().multipliedBy(value).toNanos();
+        } catch (ArithmeticException e) {
+            return Long.MAX_VALUE;
+        }
+    }
+
     protected static Config getConfig() {
         return ConfigProvider.getConfig();
     }
@@ -139,6 +185,15 @@ public abstract class GenericConfig<X extends Annotation> {
 
     protected abstract Map<String, Class<?>> getKeysToType();
 
+    /**
+     * Implementation-specific parameters are not members of the annotation. They can only be set via config properties and must have a default value.
+     *
+     * @return the default values of implementation-specific parameters
+     */
+    protected Map<String, Object> getExtensionDefaults() {
+        return Collections.emptyMap();
+    }
+
     protected final Method method;
 
     protected final X annotation;
@@ -20,6 +20,7 @@ import java.time.temporal.ChronoUnit;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.TimeUnit;
 
 import javax.enterprise.inject.spi.AnnotatedMethod;
 
@@ -49,6 +50,24 @@ public class RetryConfig extends GenericConfig<Retry> {
 
     public static final String ABORT_ON = "abortOn";
 
+    /**
+     * Implementation-specific parameter. The name of the {@link Backoff} strategy, e.g. {@code com.acme.Service/ping/Retry/backoff=exponential}. The default
+     * value is {@code constant}.
+     */
+    public static final String BACKOFF = "backoff";
+
+    /**
+     * Implementation-specific parameter. The cap of the delay computed by the {@link Backoff} strategy, in {@code delayUnit}. The default value {@code 0}
+     * means no cap.
+     */
+    public static final String MAX_DELAY = "maxDelay";
+
+    /**
+     * Implementation-specific parameter. The key of the retry budget shared by the operation, e.g. {@code com.acme.Service/ping/Retry/budget=backend} or
+     * {@code Retry/budget=global} for a single budget shared by all operations. The default value {@code ""} means the retries are not budgeted.
+     */
+    public static final String BUDGET = "budget";
+
     public RetryConfig(Method method) {
         super(Retry.class, method);
     }
@@ -74,6 +93,31 @@ public class RetryConfig extends GenericConfig<Retry> {
         if (get(JITTER, Long.class) < 0) {
             throw new FaultToleranceDefinitionException("Invalid @Retry on " + getMethodInfo() + " : jitter shouldn't be lower than 0");
         }
+        try {
+            getBackoff();
+        } catch (IllegalArgumentException e) {
+            throw new FaultToleranceDefinitionException("Invalid @Retry on " + getMethodInfo() + " : " + e.getMessage());
+        }
+        if (get(MAX_DELAY, Long.class) < 0) {
+            throw new FaultToleranceDefinitionException("Invalid @Retry on " + getMethodInfo() + " : maxDelay shouldn't be lower than 0");
+        }
+        // Resolve the validated values once, at deployment time
+        snapshot = new Snapshot(this);
+    }
+
+    /**
+     * The snapshot is resolved once, i.e. subsequent changes of the config properties are not reflected.
+     *
+     * @return the immutable snapshot of the values used when an invocation is retried
+     */
+    public Snapshot getSnapshot() {
+        Snapshot values = snapshot;
+        if (values == null) {
+            // A race only results in an equivalent snapshot being built twice
+            values = new Snapshot(this);
+            snapshot = values;
+        }
+        return values;
     }
 
     @Override
@@ -89,6 +133,21 @@ public class RetryConfig extends GenericConfig<Retry> {
         return get(RETRY_ON);
     }
 
+    /**
+     * The classifier is built once, i.e. subsequent changes of {@code retryOn} and {@code abortOn} are not reflected.
+     *
+     * @return the classifier matching the exceptions which should be retried
+     */
+    public ExceptionClassifier getRetryOnClassifier() {
+        ExceptionClassifier classifier = retryOnClassifier;
+        if (classifier == null) {
+            // A race only results in an equivalent classifier being built twice
+            classifier = ExceptionClassifier.of(getRetryOn(), getAbortOn());
+            retryOnClassifier = classifier;
+        }
+        return classifier;
+    }
+
     public Long getJitter() {
         return get(JITTER);
     }
@@ -97,13 +156,45 @@ public class RetryConfig extends GenericConfig<Retry> {
         return get(JITTER_DELAY_UNIT);
     }
 
+    /**
+     *
+     * @return the retry budget key or {@code null} if the retries are not budgeted
+     */
+    public String getBudget() {
+        String budget = get(BUDGET);
+        return budget.isEmpty() ? null : budget;
+    }
+
+    public Backoff getBackoff() {
+        return Backoff.fromValue(get(BACKOFF));
+    }
+
     @Override
     protected Map<String, Class<?>> getKeysToType() {
         return keys2Type;
     }
 
+    @Override
+    protected Map<String, Object> getExtensionDefaults() {
+        return extensionDefaults;
+    }
+
+    private volatile ExceptionClassifier retryOnClassifier;
+
+    private volatile Snapshot snapshot;
+
     private static Map<String, Class<?>> keys2Type = initKeys();
 
+    private static Map<String, Object> extensionDefaults = initExtensionDefaults();
+
+    private static Map<String, Object> initExtensionDefaults() {
+        Map<String, Object> defaults = new HashMap<>();
+        defaults.put(BACKOFF, Backoff.CONSTANT.getValue());
+        defaults.put(MAX_DELAY, 0L);
+        defaults.put(BUDGET, "");
+        return Collections.unmodifiableMap(defaults);
+    }
+
     private static Map<String, Class<?>> initKeys() {
         Map<String, Class<?>> keys = new HashMap<>();
         keys.put(MAX_RETRIES, Integer.class);
@@ -115,7 +206,75 @@ public class RetryConfig extends GenericConfig<Retry> {
         keys.put(JITTER_DELAY_UNIT, ChronoUnit.class);
         keys.put(RETRY_ON, Class[].class);
         keys.put(ABORT_ON, Class[].class);
+        keys.put(BACKOFF, String.class);
+        keys.put(MAX_DELAY, Long.class);
+        keys.put(BUDGET, String.class);
         return Collections.unmodifiableMap(keys);
     }
 
+    /**
+     * Immutable, primitive-typed values of a retry policy. Unlike {@link #get(String)}, reading a value does not involve any map lookup or unboxing.
+     */
+    public static final class Snapshot {
+
+        private Snapshot(RetryConfig config) {
+            this.maxRetries = config.get(MAX_RETRIES, Integer.class);
+            this.maxDurationNanos = toNanos(config.get(MAX_DURATION, Long.class), config.get(DURATION_UNIT, ChronoUnit.class));
+            ChronoUnit delayUnit = config.get(DELAY_UNIT, ChronoUnit.class);
+            this.delayMillis = TimeUnit.NANOSECONDS.toMillis(toNanos(config.get(DELAY, Long.class), delayUnit));
+            long maxDelayMillis = TimeUnit.NANOSECONDS.toMillis(toNanos(config.get(MAX_DELAY, Long.class), delayUnit));
+            this.maxDelayMillis = maxDelayMillis > 0 ? maxDelayMillis : Long.MAX_VALUE;
+            this.jitterNanos = toNanos(config.getJitter(), config.getJitterDelayUnit());
+            this.backoff = config.getBackoff();
+            this.retryOn = config.getRetryOnClassifier();
+        }
+
+        public int getMaxRetries() {
+            return maxRetries;
+        }
+
+        public long getMaxDurationNanos() {
+            return maxDurationNanos;
+        }
+
+        public long getDelayMillis() {
+            return delayMillis;
+        }
+
+        /**
+         *
+         * @return the cap of the delay in milliseconds, {@link Long#MAX_VALUE} if there is no cap
+         */
+        public long getMaxDelayMillis() {
+            return maxDelayMillis;
+        }
+
+        public long getJitterNanos() {
+            return jitterNanos;
+        }
+
+        public Backoff getBackoff() {
+            return backoff;
+        }
+
+        public ExceptionClassifier getRetryOn() {
+            return retryOn;
+        }
+
+        private final int maxRetries;
+
+        private final long maxDurationNanos;
+
+        private final long delayMillis;
+
+        private final long maxDelayMillis;
+
+        private final long jitterNanos;
+
+        private final Backoff backoff;
+
+        private final ExceptionClassifier retryOn;
+
+    }
+
 }
@@ -35,6 +35,13 @@ public class TimeoutConfig extends GenericConfig<Timeout> {
 
     public static final String UNIT = "unit";
 
+    /**
+     * Implementation-specific parameter. If {@code true}, the caller thread of a synchronous operation is interrupted once the timeout expires, e.g.
+     * {@code com.acme.Service/ping/Timeout/interrupt=true}. By default, the caller thread is never interrupted and the timeout is only detected once the
+     * invocation completes. The thread of an {@code @Asynchronous} operation is always interrupted.
+     */
+    public static final String INTERRUPT = "interrupt";
+
     public TimeoutConfig(Method method) {
         super(Timeout.class, method);
     }
@@ -50,6 +57,16 @@ public class TimeoutConfig extends GenericConfig<Timeout> {
         }
     }
 
+    /**
+     * The timeout is not truncated to milliseconds, i.e. sub-millisecond values are supported. A value which cannot be represented in nanoseconds (roughly 292
+     * years) saturates to {@link Long#MAX_VALUE}, i.e. the timeout never expires in practice.
+     *
+     * @return the timeout in nanoseconds
+     */
+    public long getTimeoutNanos() {
+        return toNanos(get(VALUE, Long.class), get(UNIT, ChronoUnit.class));
+    }
+
     @Override
     protected Class<Timeout> getConfigType() {
         return Timeout.class;
@@ -60,12 +77,20 @@ public class TimeoutConfig extends GenericConfig<Timeout> {
         return keys2Type;
     }
 
+    @Override
+    protected Map<String, Object> getExtensionDefaults() {
+        return extensionDefaults;
+    }
+
     private static Map<String, Class<?>> keys2Type = initKeys();
 
+    private static Map<String, Object> extensionDefaults = Collections.singletonMap(INTERRUPT, false);
+
     private static Map<String, Class<?>> initKeys() {
         Map<String, Class<?>> keys = new HashMap<>();
         keys.put(VALUE, Long.class);
         keys.put(UNIT, ChronoUnit.class);
+        keys.put(INTERRUPT, Boolean.class);
         return Collections.unmodifiableMap(keys);
     }
 }
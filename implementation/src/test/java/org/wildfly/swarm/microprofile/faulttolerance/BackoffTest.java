@@ -0,0 +1,139 @@
+/*
+ * Copyright 2017 Red Hat, Inc, and individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.wildfly.swarm.microprofile.faulttolerance;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
+
+import java.lang.reflect.Method;
+
+import org.eclipse.microprofile.faulttolerance.Retry;
+import org.testng.annotations.Test;
+import org.wildfly.swarm.microprofile.faulttolerance.config.Backoff;
+import org.wildfly.swarm.microprofile.faulttolerance.config.RetryConfig;
+
+/**
+ * Every backoff strategy must stay within its bounds and the delay of a retry, including the jitter, must never exceed {@code maxDelay}.
+ */
+public class BackoffTest {
+
+    static final long BASE = 100;
+
+    static final long MAX = 1000;
+
+    static final int RETRIES = 70;
+
+    static final int SAMPLES = 100;
+
+    @Test
+    public void testConstant() {
+        for (int retry = 0; retry < RETRIES; retry++) {
+            assertEquals(Backoff.CONSTANT.nextDelay(BASE, MAX, retry, BASE), BASE);
+        }
+        assertEquals(Backoff.CONSTANT.nextDelay(BASE, 50, 0, BASE), 50);
+    }
+
+    @Test
+    public void testExponential() {
+        long expected = BASE;
+        for (int retry = 0; retry < RETRIES; retry++) {
+            assertEquals(Backoff.EXPONENTIAL.nextDelay(BASE, MAX, retry, BASE), Math.min(expected, MAX));
+            expected = Math.min(expected * 2, MAX);
+        }
+        // No overflow without a cap
+        assertEquals(Backoff.EXPONENTIAL.nextDelay(BASE, Long.MAX_VALUE, RETRIES, BASE), Long.MAX_VALUE);
+    }
+
+    @Test
+    public void testFullJitter() {
+        for (int retry = 0; retry < RETRIES; retry++) {
+            long upper = Backoff.EXPONENTIAL.nextDelay(BASE, MAX, retry, BASE);
+            for (int i = 0; i < SAMPLES; i++) {
+                assertBetween(Backoff.FULL_JITTER.nextDelay(BASE, MAX, retry, BASE), 0, upper);
+            }
+        }
+        // No overflow once the delay saturates without a cap
+        for (int i = 0; i < SAMPLES; i++) {
+            assertBetween(Backoff.FULL_JITTER.nextDelay(BASE, Long.MAX_VALUE, RETRIES, BASE), 0, Long.MAX_VALUE);
+        }
+    }
+
+    @Test
+    public void testDecorrelatedJitter() {
+        for (int i = 0; i < SAMPLES; i++) {
+            long previous = BASE;
+            for (int retry = 0; retry < RETRIES; retry++) {
+                long delay = Backoff.DECORRELATED_JITTER.nextDelay(BASE, MAX, retry, previous);
+                assertBetween(delay, BASE, Math.min(previous * 3, MAX));
+                previous = delay;
+            }
+        }
+        assertEquals(Backoff.DECORRELATED_JITTER.nextDelay(BASE, MAX, 1, Long.MAX_VALUE), MAX);
+    }
+
+    @Test
+    public void testFibonacci() {
+        long previous = 0;
+        long current = 1;
+        for (int retry = 0; retry < RETRIES; retry++) {
+            assertEquals(Backoff.FIBONACCI.nextDelay(BASE, MAX, retry, BASE), Math.min(BASE * current, MAX));
+            long next = Math.min(previous + current, MAX);
+            previous = current;
+            current = next;
+        }
+    }
+
+    @Test
+    public void testJitterDoesNotExceedMaxDelay() throws NoSuchMethodException {
+        for (Backoff backoff : Backoff.values()) {
+            RetryConfig.Snapshot config = createConfig(backoff);
+            assertEquals(config.getMaxDelayMillis(), 150);
+            for (int i = 0; i < SAMPLES; i++) {
+                RetryContext context = new RetryContext(config, null);
+                for (int retry = 0; retry < 10; retry++) {
+                    assertBetween(context.nextDelay(), 0, 150);
+                }
+            }
+        }
+    }
+
+    private static RetryConfig.Snapshot createConfig(Backoff backoff) throws NoSuchMethodException {
+        Method method = JitteredService.class.getDeclaredMethod("ping");
+        String prefix = JitteredService.class.getName() + "/ping/Retry/";
+        System.setProperty(prefix + RetryConfig.BACKOFF, backoff.getValue());
+        System.setProperty(prefix + RetryConfig.MAX_DELAY, "150");
+        try {
+            return new RetryConfig(method).getSnapshot();
+        } finally {
+            System.clearProperty(prefix + RetryConfig.BACKOFF);
+            System.clearProperty(prefix + RetryConfig.MAX_DELAY);
+        }
+    }
+
+    private static void assertBetween(long value, long min, long max) {
+        assertTrue(value >= min && value <= max, value + " not in [" + min + ", " + max + "]");
+    }
+
+    static class JitteredService {
+
+        // The jitter alone exceeds the cap
+        @Retry(delay = 100, jitter = 400)
+        void ping() {
+        }
+
+    }
+
+}
@@ -0,0 +1,59 @@
+/*
+ * Copyright 2017 Red Hat, Inc, and individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.wildfly.swarm.microprofile.faulttolerance;
+
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.fail;
+
+import java.util.concurrent.TimeUnit;
+
+import org.eclipse.microprofile.faulttolerance.Timeout;
+import org.testng.annotations.Test;
+import org.wildfly.swarm.microprofile.faulttolerance.config.TimeoutConfig;
+
+/**
+ * An interrupt of the watchdog must never leak into subsequent work of the interrupted thread.
+ */
+public class ExecutionTimeoutTest {
+
+    @Test
+    public void testInterruptClearedAfterError() throws Exception {
+        HashedWheelTimer timer = new HashedWheelTimer("test-timer", 1, TimeUnit.MILLISECONDS, 64);
+        try {
+            ExecutionTimeout timeout = new ExecutionTimeout("timeout", new TimeoutConfig(ExecutionTimeoutTest.class.getMethod("timeout")), timer);
+            try {
+                timeout.invoke(() -> {
+                    // Busy wait, i.e. the interrupt is ignored
+                    long end = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(200);
+                    while (System.nanoTime() < end) {
+                        Thread.yield();
+                    }
+                    throw new LinkageError("failed");
+                }, true);
+                fail("LinkageError expected");
+            } catch (LinkageError expected) {
+            }
+            assertFalse(Thread.interrupted());
+        } finally {
+            timer.stop();
+        }
+    }
+
+    @Timeout(50)
+    public void timeout() {
+    }
+
+}
@@ -0,0 +1,122 @@
+/*
+ * Copyright 2017 Red Hat, Inc, and individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.wildfly.swarm.microprofile.faulttolerance;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+import static org.testng.Assert.fail;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.testng.annotations.Test;
+
+/**
+ * A timeout must expire once its delay elapsed, never early, and must not expire once cancelled or once the timer is stopped.
+ */
+public class HashedWheelTimerTest {
+
+    @Test
+    public void testExpiryOrder() throws InterruptedException {
+        HashedWheelTimer timer = new HashedWheelTimer("test-timer", 1, TimeUnit.MILLISECONDS, 64);
+        try {
+            Queue<Long> expired = new ConcurrentLinkedQueue<>();
+            CountDownLatch latch = new CountDownLatch(3);
+            for (long delay : new long[] { 30, 10, 20 }) {
+                timer.newTimeout(() -> {
+                    expired.add(delay);
+                    latch.countDown();
+                }, delay, TimeUnit.MILLISECONDS);
+            }
+            assertTrue(latch.await(5, TimeUnit.SECONDS));
+            assertEquals(new ArrayList<>(expired), Arrays.asList(10L, 20L, 30L));
+        } finally {
+            timer.stop();
+        }
+    }
+
+    @Test
+    public void testCancelBeforeExpiry() throws InterruptedException {
+        HashedWheelTimer timer = new HashedWheelTimer("test-timer", 1, TimeUnit.MILLISECONDS, 64);
+        try {
+            AtomicBoolean cancelledRun = new AtomicBoolean();
+            HashedWheelTimer.Timeout cancelled = timer.newTimeout(() -> cancelledRun.set(true), 20, TimeUnit.MILLISECONDS);
+            assertTrue(cancelled.cancel());
+            assertFalse(cancelled.cancel());
+            // Expires after the cancelled timeout would have
+            CountDownLatch latch = new CountDownLatch(1);
+            HashedWheelTimer.Timeout expired = timer.newTimeout(latch::countDown, 50, TimeUnit.MILLISECONDS);
+            assertTrue(latch.await(5, TimeUnit.SECONDS));
+            assertFalse(cancelledRun.get());
+            assertFalse(expired.cancel());
+        } finally {
+            timer.stop();
+        }
+    }
+
+    @Test
+    public void testTimeoutSpanningSeveralRounds() throws InterruptedException {
+        // 4 buckets of 1 ms, i.e. a round of the wheel takes 4 ms
+        HashedWheelTimer timer = new HashedWheelTimer("test-timer", 1, TimeUnit.MILLISECONDS, 4);
+        try {
+            List<Long> delays = Arrays.asList(3L, 9L, 22L);
+            List<AtomicLong> elapsed = new ArrayList<>();
+            CountDownLatch latch = new CountDownLatch(delays.size());
+            long start = System.nanoTime();
+            for (long delay : delays) {
+                AtomicLong expiredAfter = new AtomicLong();
+                elapsed.add(expiredAfter);
+                timer.newTimeout(() -> {
+                    expiredAfter.set(System.nanoTime() - start);
+                    latch.countDown();
+                }, delay, TimeUnit.MILLISECONDS);
+            }
+            assertTrue(latch.await(5, TimeUnit.SECONDS));
+            for (int i = 0; i < delays.size(); i++) {
+                long expiredAfter = elapsed.get(i).get();
+                assertTrue(expiredAfter >= TimeUnit.MILLISECONDS.toNanos(delays.get(i)),
+                        "Timeout of " + delays.get(i) + " ms expired early: " + TimeUnit.NANOSECONDS.toMicros(expiredAfter) + " us");
+            }
+        } finally {
+            timer.stop();
+        }
+    }
+
+    @Test
+    public void testStopWithPendingTimeouts() throws InterruptedException {
+        HashedWheelTimer timer = new HashedWheelTimer("test-timer", 1, TimeUnit.MILLISECONDS, 64);
+        AtomicBoolean run = new AtomicBoolean();
+        timer.newTimeout(() -> run.set(true), 10, TimeUnit.MILLISECONDS);
+        timer.newTimeout(() -> run.set(true), 100, TimeUnit.SECONDS);
+        timer.stop();
+        Thread.sleep(50);
+        assertFalse(run.get());
+        try {
+            timer.newTimeout(() -> run.set(true), 10, TimeUnit.MILLISECONDS);
+            fail("IllegalStateException expected");
+        } catch (IllegalStateException expected) {
+        }
+    }
+
+}
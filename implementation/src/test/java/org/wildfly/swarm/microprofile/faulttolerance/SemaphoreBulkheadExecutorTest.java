@@ -0,0 +1,175 @@
+/*
+ * Copyright 2017 Red Hat, Inc, and individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.wildfly.swarm.microprofile.faulttolerance;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
+import static org.testng.Assert.fail;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.IntSupplier;
+
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+/**
+ * The bulkhead does not depend on virtual threads, i.e. a plain thread pool is used as the delegate.
+ */
+public class SemaphoreBulkheadExecutorTest {
+
+    @BeforeMethod
+    public void createDelegate() {
+        delegate = Executors.newCachedThreadPool(new DaemonThreadFactory("test-bulkhead"));
+    }
+
+    @AfterMethod
+    public void shutdownDelegate() {
+        delegate.shutdownNow();
+    }
+
+    @Test
+    public void testConcurrencyLimit() throws InterruptedException {
+        SemaphoreBulkheadExecutor bulkhead = new SemaphoreBulkheadExecutor(delegate, 2, 10);
+        AtomicInteger running = new AtomicInteger();
+        AtomicInteger maxRunning = new AtomicInteger();
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch done = new CountDownLatch(6);
+        for (int i = 0; i < 6; i++) {
+            bulkhead.execute(() -> {
+                maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                } finally {
+                    running.decrementAndGet();
+                    done.countDown();
+                }
+            });
+        }
+        await(maxRunning::get, 2);
+        // The other tasks wait for a permit
+        await(bulkhead::getQueueSize, 4);
+        assertEquals(maxRunning.get(), 2);
+        release.countDown();
+        assertTrue(done.await(5, TimeUnit.SECONDS));
+        assertEquals(maxRunning.get(), 2);
+        assertEquals(bulkhead.getQueueSize(), 0);
+    }
+
+    @Test
+    public void testWaitingTaskQueueLimit() throws InterruptedException {
+        SemaphoreBulkheadExecutor bulkhead = new SemaphoreBulkheadExecutor(delegate, 1, 1);
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch done = new CountDownLatch(2);
+        Runnable task = () -> {
+            started.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } finally {
+                done.countDown();
+            }
+        };
+        bulkhead.execute(task);
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+        bulkhead.execute(task);
+        await(bulkhead::getQueueSize, 1);
+        try {
+            bulkhead.execute(task);
+            fail("RejectedExecutionException expected");
+        } catch (RejectedExecutionException expected) {
+        }
+        assertEquals(bulkhead.getQueueSize(), 1);
+        release.countDown();
+        assertTrue(done.await(5, TimeUnit.SECONDS));
+        // All the permits are released once the tasks complete
+        await(bulkhead::getQueueSize, 0);
+        CountDownLatch next = new CountDownLatch(2);
+        bulkhead.execute(next::countDown);
+        bulkhead.execute(next::countDown);
+        assertTrue(next.await(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void testPermitReleasedIfDelegateRejects() throws InterruptedException {
+        AtomicBoolean reject = new AtomicBoolean(true);
+        Executor rejecting = (command) -> {
+            if (reject.getAndSet(false)) {
+                throw new RejectedExecutionException("Delegate is shut down");
+            }
+            delegate.execute(command);
+        };
+        SemaphoreBulkheadExecutor bulkhead = new SemaphoreBulkheadExecutor(rejecting, 1, 0);
+        try {
+            bulkhead.execute(() -> {
+            });
+            fail("RejectedExecutionException expected");
+        } catch (RejectedExecutionException expected) {
+        }
+        // The admission of the rejected task must not be leaked
+        CountDownLatch done = new CountDownLatch(1);
+        bulkhead.execute(done::countDown);
+        assertTrue(done.await(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void testPermitReleasedIfTaskFails() throws InterruptedException {
+        SemaphoreBulkheadExecutor bulkhead = new SemaphoreBulkheadExecutor(delegate, 1, 0);
+        CountDownLatch failed = new CountDownLatch(1);
+        bulkhead.execute(() -> {
+            failed.countDown();
+            throw new IllegalStateException();
+        });
+        assertTrue(failed.await(5, TimeUnit.SECONDS));
+        CountDownLatch done = new CountDownLatch(1);
+        long deadline = System.currentTimeMillis() + 5000;
+        while (true) {
+            try {
+                bulkhead.execute(done::countDown);
+                break;
+            } catch (RejectedExecutionException e) {
+                // The failed task may not have released its permits yet
+                if (System.currentTimeMillis() > deadline) {
+                    throw e;
+                }
+                Thread.sleep(10);
+            }
+        }
+        assertTrue(done.await(5, TimeUnit.SECONDS));
+    }
+
+    private static void await(IntSupplier actual, int expected) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (actual.getAsInt() != expected && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertEquals(actual.getAsInt(), expected);
+    }
+
+    private ExecutorService delegate;
+
+}
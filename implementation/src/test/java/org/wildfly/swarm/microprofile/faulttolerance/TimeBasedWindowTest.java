@@ -0,0 +1,71 @@
+/*
+ * Copyright 2017 Red Hat, Inc, and individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.wildfly.swarm.microprofile.faulttolerance;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+
+import java.util.concurrent.TimeUnit;
+
+import org.testng.annotations.Test;
+
+/**
+ * Outcomes must be counted across the buckets of the window and must expire once their bucket falls out of the window, also if the bucket is reused.
+ */
+public class TimeBasedWindowTest {
+
+    @Test
+    public void testRolloverAndExpiry() throws InterruptedException {
+        TimeBasedWindow window = new TimeBasedWindow(2, 4);
+        long start = System.nanoTime();
+
+        // Second 0
+        window.recordFailure();
+        window.recordFailure();
+        window.recordFailure();
+        assertFalse(window.isVolumeThresholdReached());
+        assertEquals(window.getFailureRatio(), 1.0);
+
+        // Second 1 - a new bucket, the previous one is still in the window
+        sleepUntil(start, 1);
+        window.recordSuccess();
+        assertTrue(window.isVolumeThresholdReached());
+        assertEquals(window.getFailureRatio(), 0.75);
+
+        // Second 2 - the bucket of second 0 is stale
+        sleepUntil(start, 2);
+        assertFalse(window.isVolumeThresholdReached());
+        assertEquals(window.getFailureRatio(), 0.0);
+        // Replaces the stale bucket, i.e. the failures of second 0 are not counted again
+        window.recordFailure();
+        assertEquals(window.getFailureRatio(), 0.5);
+
+        // Second 4 - all the buckets are stale
+        sleepUntil(start, 4);
+        assertFalse(window.isVolumeThresholdReached());
+        assertEquals(window.getFailureRatio(), 0.0);
+    }
+
+    private static void sleepUntil(long start, int second) throws InterruptedException {
+        // A margin so that the window, created just before the start, is in the given second as well
+        long sleep = TimeUnit.SECONDS.toNanos(second) + TimeUnit.MILLISECONDS.toNanos(100) - (System.nanoTime() - start);
+        if (sleep > 0) {
+            TimeUnit.NANOSECONDS.sleep(sleep);
+        }
+    }
+
+}
@@ -0,0 +1,86 @@
+/*
+ * Copyright 2017 Red Hat, Inc, and individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.wildfly.swarm.microprofile.faulttolerance.asynchronous.stage;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+import static org.testng.Assert.fail;
+
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import javax.inject.Inject;
+
+import org.eclipse.microprofile.faulttolerance.exceptions.TimeoutException;
+import org.jboss.arquillian.container.test.api.Deployment;
+import org.jboss.arquillian.testng.Arquillian;
+import org.jboss.shrinkwrap.api.spec.JavaArchive;
+import org.testng.annotations.Test;
+import org.wildfly.swarm.microprofile.faulttolerance.TestArchive;
+
+public class CompletionStageTest extends Arquillian {
+
+    @Deployment
+    public static JavaArchive createTestArchive() {
+        return TestArchive.createBase().addPackage(CompletionStageTest.class.getPackage());
+    }
+
+    @Inject
+    StageService service;
+
+    @Test
+    public void testRetry() throws Exception {
+        assertEquals(service.retry().toCompletableFuture().get(5, TimeUnit.SECONDS), StageService.HELLO);
+        assertEquals(service.getRetryCounter().get(), 3);
+    }
+
+    @Test
+    public void testTimeout() throws Exception {
+        try {
+            service.timeout().toCompletableFuture().get(5, TimeUnit.SECONDS);
+            fail();
+        } catch (ExecutionException expected) {
+            assertTrue(expected.getCause() instanceof TimeoutException, "TimeoutException expected: " + expected.getCause());
+        }
+    }
+
+    @Test
+    public void testFutureTimeout() throws Exception {
+        long start = System.nanoTime();
+        try {
+            service.lateFuture().get(5, TimeUnit.SECONDS);
+            fail();
+        } catch (ExecutionException expected) {
+            assertTrue(expected.getCause() instanceof TimeoutException, "TimeoutException expected: " + expected.getCause());
+        }
+        // Both attempts time out before the Future completes
+        assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) < 1500);
+    }
+
+    @Test
+    public void testTimeoutFallbackNotOnTimerThread() throws Exception {
+        String fallbackThread = service.timeoutWithFallback().toCompletableFuture().get(5, TimeUnit.SECONDS);
+        // The timer thread is shared by all the operations and must not run the fallback
+        assertFalse(fallbackThread.startsWith("ft-timeout"), "Fallback invoked on " + fallbackThread);
+    }
+
+    @Test
+    public void testFallback() throws Exception {
+        assertEquals(service.withFallback().toCompletableFuture().get(5, TimeUnit.SECONDS), StageService.FALLBACK);
+    }
+
+}
@@ -0,0 +1,103 @@
+/*
+ * Copyright 2017 Red Hat, Inc, and individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.wildfly.swarm.microprofile.faulttolerance.asynchronous.stage;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.enterprise.context.ApplicationScoped;
+
+import org.eclipse.microprofile.faulttolerance.Asynchronous;
+import org.eclipse.microprofile.faulttolerance.Fallback;
+import org.eclipse.microprofile.faulttolerance.Retry;
+import org.eclipse.microprofile.faulttolerance.Timeout;
+
+@ApplicationScoped
+public class StageService {
+
+    static final String HELLO = "Hello";
+
+    static final String FALLBACK = "Fallback";
+
+    @Asynchronous
+    @Retry(maxRetries = 3)
+    public CompletionStage<String> retry() {
+        if (retryCounter.incrementAndGet() < 3) {
+            return failed(new IllegalStateException());
+        }
+        return CompletableFuture.completedFuture(HELLO);
+    }
+
+    @Asynchronous
+    @Timeout(100)
+    public CompletionStage<String> timeout() {
+        // Never completes
+        return new CompletableFuture<>();
+    }
+
+    @Asynchronous
+    @Retry(maxRetries = 1)
+    @Timeout(200)
+    public Future<String> lateFuture() {
+        // The method returns immediately, the result is only available after the timeout
+        return CompletableFuture.supplyAsync(() -> {
+            try {
+                TimeUnit.SECONDS.sleep(2);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return HELLO;
+        });
+    }
+
+    @Asynchronous
+    @Timeout(100)
+    @Fallback(fallbackMethod = "fallbackThread")
+    public CompletionStage<String> timeoutWithFallback() {
+        // Never completes
+        return new CompletableFuture<>();
+    }
+
+    @Asynchronous
+    @Fallback(fallbackMethod = "fallback")
+    public CompletionStage<String> withFallback() {
+        return failed(new IllegalStateException());
+    }
+
+    CompletionStage<String> fallback() {
+        return CompletableFuture.completedFuture(FALLBACK);
+    }
+
+    CompletionStage<String> fallbackThread() {
+        return CompletableFuture.completedFuture(Thread.currentThread().getName());
+    }
+
+    private static CompletionStage<String> failed(Exception e) {
+        CompletableFuture<String> failed = new CompletableFuture<>();
+        failed.completeExceptionally(e);
+        return failed;
+    }
+
+    AtomicInteger getRetryCounter() {
+        return retryCounter;
+    }
+
+    private final AtomicInteger retryCounter = new AtomicInteger();
+
+}
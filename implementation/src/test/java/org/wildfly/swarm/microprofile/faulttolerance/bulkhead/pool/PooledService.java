@@ -0,0 +1,62 @@
+/*
+ * Copyright 2017 Red Hat, Inc, and individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.wildfly.swarm.microprofile.faulttolerance.bulkhead.pool;
+
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.enterprise.context.ApplicationScoped;
+
+import org.eclipse.microprofile.faulttolerance.Asynchronous;
+import org.eclipse.microprofile.faulttolerance.Bulkhead;
+
+@ApplicationScoped
+public class PooledService {
+
+    // More than the default size of a Hystrix thread pool
+    static final int SLOW_BULKHEAD = 12;
+
+    @Asynchronous
+    @Bulkhead(SLOW_BULKHEAD)
+    public Future<String> slow(CountDownLatch latch) throws InterruptedException {
+        running.incrementAndGet();
+        slowThreads.add(Thread.currentThread().getName());
+        latch.await();
+        return CompletableFuture.completedFuture(Thread.currentThread().getName());
+    }
+
+    @Asynchronous
+    public Future<String> fast() {
+        return CompletableFuture.completedFuture(Thread.currentThread().getName());
+    }
+
+    AtomicInteger getRunning() {
+        return running;
+    }
+
+    Set<String> getSlowThreads() {
+        return slowThreads;
+    }
+
+    private final AtomicInteger running = new AtomicInteger();
+
+    private final Set<String> slowThreads = ConcurrentHashMap.newKeySet();
+
+}
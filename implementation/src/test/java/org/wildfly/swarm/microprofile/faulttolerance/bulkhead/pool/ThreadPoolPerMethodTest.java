@@ -0,0 +1,74 @@
+/*
+ * Copyright 2017 Red Hat, Inc, and individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.wildfly.swarm.microprofile.faulttolerance.bulkhead.pool;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import javax.inject.Inject;
+
+import org.jboss.arquillian.container.test.api.Deployment;
+import org.jboss.arquillian.testng.Arquillian;
+import org.jboss.shrinkwrap.api.spec.JavaArchive;
+import org.testng.annotations.Test;
+import org.wildfly.swarm.microprofile.faulttolerance.TestArchive;
+
+/**
+ * Every {@code @Asynchronous} method must have a dedicated thread pool sized from {@code @Bulkhead.value}, i.e. a saturated method must not starve another
+ * one.
+ */
+public class ThreadPoolPerMethodTest extends Arquillian {
+
+    @Deployment
+    public static JavaArchive createTestArchive() {
+        return TestArchive.createBase().addPackage(ThreadPoolPerMethodTest.class.getPackage());
+    }
+
+    @Inject
+    PooledService service;
+
+    @Test
+    public void testSaturatedMethodDoesNotStarveAnother() throws Exception {
+        CountDownLatch latch = new CountDownLatch(1);
+        List<Future<String>> slow = new ArrayList<>();
+        try {
+            for (int i = 0; i < PooledService.SLOW_BULKHEAD; i++) {
+                slow.add(service.slow(latch));
+            }
+            // All the tasks run at once, i.e. the pool is not limited by the default Hystrix core size
+            long deadline = System.currentTimeMillis() + 5000;
+            while (service.getRunning().get() < PooledService.SLOW_BULKHEAD && System.currentTimeMillis() < deadline) {
+                Thread.sleep(10);
+            }
+            assertEquals(service.getRunning().get(), PooledService.SLOW_BULKHEAD);
+            // The other method is executed by its own pool while the first one is saturated
+            String fastThread = service.fast().get(5, TimeUnit.SECONDS);
+            assertFalse(service.getSlowThreads().contains(fastThread), fastThread + " also executes the saturated method");
+        } finally {
+            latch.countDown();
+        }
+        for (Future<String> future : slow) {
+            future.get(5, TimeUnit.SECONDS);
+        }
+    }
+
+}
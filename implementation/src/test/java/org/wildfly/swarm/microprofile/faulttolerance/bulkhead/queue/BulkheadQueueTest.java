@@ -0,0 +1,69 @@
+/*
+ * Copyright 2017 Red Hat, Inc, and individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.wildfly.swarm.microprofile.faulttolerance.bulkhead.queue;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.fail;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import javax.inject.Inject;
+
+import org.eclipse.microprofile.faulttolerance.exceptions.BulkheadException;
+import org.jboss.arquillian.container.test.api.Deployment;
+import org.jboss.arquillian.testng.Arquillian;
+import org.jboss.shrinkwrap.api.spec.JavaArchive;
+import org.testng.annotations.Test;
+import org.wildfly.swarm.microprofile.faulttolerance.HystrixExtension;
+import org.wildfly.swarm.microprofile.faulttolerance.TestArchive;
+
+public class BulkheadQueueTest extends Arquillian {
+
+    @Deployment
+    public static JavaArchive createTestArchive() {
+        return TestArchive.createBase().addPackage(BulkheadQueueTest.class.getPackage());
+    }
+
+    @Inject
+    QueuedService service;
+
+    @Inject
+    HystrixExtension extension;
+
+    @Test
+    public void testWaitingTaskQueue() throws InterruptedException, ExecutionException, TimeoutException, NoSuchMethodException {
+        String methodKey = QueuedService.class.getMethod("work", CountDownLatch.class).toGenericString();
+        CountDownLatch latch = new CountDownLatch(1);
+        // The first task occupies the only thread, the second one waits in the queue
+        Future<String> running = service.work(latch);
+        Future<String> queued = service.work(latch);
+        assertEquals(extension.getExecutionEngine().getBulkheadQueueSize(methodKey), 1);
+        try {
+            service.work(latch);
+            fail("The queue should be full");
+        } catch (BulkheadException expected) {
+        }
+        latch.countDown();
+        assertEquals(running.get(5, TimeUnit.SECONDS), QueuedService.DONE);
+        assertEquals(queued.get(5, TimeUnit.SECONDS), QueuedService.DONE);
+        assertEquals(extension.getExecutionEngine().getBulkheadQueueSize(methodKey), 0);
+    }
+
+}
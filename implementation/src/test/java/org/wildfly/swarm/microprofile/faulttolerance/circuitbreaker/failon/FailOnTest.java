@@ -0,0 +1,65 @@
+/*
+ * Copyright 2017 Red Hat, Inc, and individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.wildfly.swarm.microprofile.faulttolerance.circuitbreaker.failon;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.fail;
+
+import javax.inject.Inject;
+
+import org.eclipse.microprofile.faulttolerance.exceptions.CircuitBreakerOpenException;
+import org.jboss.arquillian.container.test.api.Deployment;
+import org.jboss.arquillian.testng.Arquillian;
+import org.jboss.shrinkwrap.api.spec.JavaArchive;
+import org.testng.annotations.Test;
+import org.wildfly.swarm.microprofile.faulttolerance.TestArchive;
+
+/**
+ * Only exceptions which match {@code failOn} may open the circuit.
+ */
+public class FailOnTest extends Arquillian {
+
+    @Deployment
+    public static JavaArchive createTestArchive() {
+        return TestArchive.createBase().addPackage(FailOnTest.class.getPackage());
+    }
+
+    @Inject
+    FailOnService service;
+
+    @Test
+    public void testOtherExceptionsDoNotOpenCircuit() {
+        for (int i = 0; i < 2 * FailOnService.REQUEST_THRESHOLD; i++) {
+            assertFailure(new IllegalArgumentException(), IllegalArgumentException.class);
+        }
+        assertEquals(service.ping(null), "pong");
+        // The window contains [success, success, failure, failure]
+        assertFailure(new IllegalStateException(), IllegalStateException.class);
+        assertFailure(new IllegalStateException(), IllegalStateException.class);
+        // Should be OPEN now
+        assertFailure(new IllegalStateException(), CircuitBreakerOpenException.class);
+    }
+
+    private void assertFailure(RuntimeException failure, Class<? extends Exception> expected) {
+        try {
+            service.ping(failure);
+            fail(expected.getSimpleName() + " expected");
+        } catch (Exception e) {
+            assertEquals(e.getClass(), expected);
+        }
+    }
+
+}
@@ -0,0 +1,64 @@
+/*
+ * Copyright 2017 Red Hat, Inc, and individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.wildfly.swarm.microprofile.faulttolerance.circuitbreaker.window;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.fail;
+
+import javax.inject.Inject;
+
+import org.eclipse.microprofile.faulttolerance.exceptions.CircuitBreakerOpenException;
+import org.jboss.arquillian.container.test.api.Deployment;
+import org.jboss.arquillian.testng.Arquillian;
+import org.jboss.shrinkwrap.api.spec.JavaArchive;
+import org.testng.annotations.Test;
+import org.wildfly.swarm.microprofile.faulttolerance.TestArchive;
+
+/**
+ * The failure ratio must be evaluated over the last {@code requestVolumeThreshold} executions only.
+ */
+public class SlidingWindowTest extends Arquillian {
+
+    @Deployment
+    public static JavaArchive createTestArchive() {
+        return TestArchive.createBase().addPackage(SlidingWindowTest.class.getPackage());
+    }
+
+    @Inject
+    WindowedService service;
+
+    @Test
+    public void testOldSuccessesDoNotDiluteFailures() {
+        for (int i = 0; i < 10 * WindowedService.REQUEST_THRESHOLD; i++) {
+            assertEquals(service.ping(false), "pong");
+        }
+        // Cumulative failure ratio is 2/42 but the window contains [success, success, failure, failure]
+        assertFailure(IllegalStateException.class);
+        assertFailure(IllegalStateException.class);
+        // Should be OPEN now
+        assertFailure(CircuitBreakerOpenException.class);
+    }
+
+    private void assertFailure(Class<? extends Exception> expected) {
+        try {
+            service.ping(true);
+            fail(expected.getSimpleName() + " expected");
+        } catch (Exception e) {
+            assertEquals(e.getClass(), expected);
+        }
+    }
+
+}
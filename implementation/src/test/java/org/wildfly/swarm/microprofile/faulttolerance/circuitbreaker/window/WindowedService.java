@@ -0,0 +1,35 @@
+/*
+ * Copyright 2017 Red Hat, Inc, and individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.wildfly.swarm.microprofile.faulttolerance.circuitbreaker.window;
+
+import javax.enterprise.context.ApplicationScoped;
+
+import org.eclipse.microprofile.faulttolerance.CircuitBreaker;
+
+@ApplicationScoped
+public class WindowedService {
+
+    static final int REQUEST_THRESHOLD = 4;
+
+    @CircuitBreaker(requestVolumeThreshold = REQUEST_THRESHOLD, failureRatio = 0.5, delay = 50000)
+    public String ping(boolean fail) {
+        if (fail) {
+            throw new IllegalStateException();
+        }
+        return "pong";
+    }
+
+}
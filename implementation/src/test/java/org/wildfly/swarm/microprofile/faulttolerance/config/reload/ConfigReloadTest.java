@@ -0,0 +1,138 @@
+/*
+ * Copyright 2017 Red Hat, Inc, and individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.wildfly.swarm.microprofile.faulttolerance.config.reload;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.fail;
+
+import javax.inject.Inject;
+
+import org.eclipse.microprofile.faulttolerance.exceptions.CircuitBreakerOpenException;
+
+import org.jboss.arquillian.container.test.api.Deployment;
+import org.jboss.arquillian.testng.Arquillian;
+import org.jboss.shrinkwrap.api.asset.StringAsset;
+import org.jboss.shrinkwrap.api.spec.JavaArchive;
+import org.testng.annotations.Test;
+import org.wildfly.swarm.microprofile.faulttolerance.TestArchive;
+import org.wildfly.swarm.microprofile.faulttolerance.config.GenericConfig;
+
+/**
+ * A change of a config parameter must be applied without restarting the application.
+ */
+public class ConfigReloadTest extends Arquillian {
+
+    static final String MAX_RETRIES_KEY = ReloadedService.class.getName() + "/fail/Retry/maxRetries";
+
+    static final String OPEN_DELAY_KEY = ReloadedService.class.getName() + "/open/Retry/delay";
+
+    static final String POOL_SIZE_KEY = ReloadedService.class.getName() + "/pooled/Fallback/poolSize";
+
+    @Deployment
+    public static JavaArchive createTestArchive() {
+        return TestArchive.createBase().addPackage(ConfigReloadTest.class.getPackage())
+                .addAsManifestResource(new StringAsset(GenericConfig.CONFIG_RELOAD_INTERVAL_KEY + "=50\n" + POOL_SIZE_KEY + "=1"),
+                        "microprofile-config.properties");
+    }
+
+    @Inject
+    ReloadedService service;
+
+    @Test
+    public void testMaxRetriesReloaded() throws InterruptedException {
+        awaitInvocations(2);
+        // System properties are a config source with a higher ordinal than the annotation
+        System.setProperty(MAX_RETRIES_KEY, "3");
+        try {
+            awaitInvocations(4);
+        } finally {
+            System.clearProperty(MAX_RETRIES_KEY);
+        }
+    }
+
+    @Test
+    public void testOpenCircuitBreakerKept() throws InterruptedException {
+        for (int i = 0; i < 2; i++) {
+            try {
+                service.open();
+                fail("IllegalStateException expected");
+            } catch (IllegalStateException expected) {
+            }
+        }
+        assertCircuitOpen();
+        // Only the retry parameters change
+        System.setProperty(MAX_RETRIES_KEY, "2");
+        System.setProperty(OPEN_DELAY_KEY, "10");
+        try {
+            awaitInvocations(3);
+            // Both operations are reloaded by the same pass
+            Thread.sleep(200);
+            assertCircuitOpen();
+        } finally {
+            System.clearProperty(MAX_RETRIES_KEY);
+            System.clearProperty(OPEN_DELAY_KEY);
+        }
+    }
+
+    @Test
+    public void testReplacedPoolDisposed() throws InterruptedException {
+        assertEquals(service.pooled(), PooledHandler.FALLBACK);
+        assertEquals(service.pooled(), PooledHandler.FALLBACK);
+        assertEquals(PooledHandler.CREATED.get(), 1);
+        assertEquals(PooledHandler.DESTROYED.get(), 0);
+        System.setProperty(POOL_SIZE_KEY, "2");
+        try {
+            // The idle instance of the replaced plan is destroyed once the reloaded plan is published
+            long deadline = System.currentTimeMillis() + 5000;
+            while (PooledHandler.DESTROYED.get() == 0 && System.currentTimeMillis() < deadline) {
+                Thread.sleep(50);
+            }
+            assertEquals(PooledHandler.DESTROYED.get(), 1);
+            assertEquals(service.pooled(), PooledHandler.FALLBACK);
+            assertEquals(PooledHandler.CREATED.get(), 2);
+        } finally {
+            System.clearProperty(POOL_SIZE_KEY);
+        }
+    }
+
+    private void assertCircuitOpen() {
+        try {
+            service.open();
+            fail("CircuitBreakerOpenException expected");
+        } catch (CircuitBreakerOpenException expected) {
+        }
+    }
+
+    private void awaitInvocations(int expected) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000;
+        int invocations;
+        while ((invocations = invokeAndCount()) != expected && System.currentTimeMillis() < deadline) {
+            Thread.sleep(50);
+        }
+        assertEquals(invocations, expected);
+    }
+
+    private int invokeAndCount() {
+        service.getInvocations().set(0);
+        try {
+            service.fail();
+            fail("IllegalStateException expected");
+        } catch (IllegalStateException expected) {
+        }
+        return service.getInvocations().get();
+    }
+
+}
@@ -0,0 +1,53 @@
+/*
+ * Copyright 2017 Red Hat, Inc, and individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.wildfly.swarm.microprofile.faulttolerance.config.reload;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.enterprise.context.ApplicationScoped;
+
+import org.eclipse.microprofile.faulttolerance.CircuitBreaker;
+import org.eclipse.microprofile.faulttolerance.Fallback;
+import org.eclipse.microprofile.faulttolerance.Retry;
+
+@ApplicationScoped
+public class ReloadedService {
+
+    @Retry(maxRetries = 1)
+    public String fail() {
+        invocations.incrementAndGet();
+        throw new IllegalStateException();
+    }
+
+    @Retry(maxRetries = 0)
+    @CircuitBreaker(requestVolumeThreshold = 2, failureRatio = 1.0, delay = 10000)
+    public String open() {
+        throw new IllegalStateException();
+    }
+
+    // Pooling is enabled in ConfigReloadTest
+    @Fallback(PooledHandler.class)
+    public String pooled() {
+        throw new IllegalStateException();
+    }
+
+    AtomicInteger getInvocations() {
+        return invocations;
+    }
+
+    private final AtomicInteger invocations = new AtomicInteger();
+
+}
@@ -0,0 +1,111 @@
+/*
+ * Copyright 2017 Red Hat, Inc, and individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.wildfly.swarm.microprofile.faulttolerance.engine;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
+import static org.testng.Assert.fail;
+
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import javax.inject.Inject;
+
+import org.eclipse.microprofile.faulttolerance.exceptions.CircuitBreakerOpenException;
+import org.eclipse.microprofile.faulttolerance.exceptions.TimeoutException;
+import org.jboss.arquillian.container.test.api.Deployment;
+import org.jboss.arquillian.testng.Arquillian;
+import org.jboss.shrinkwrap.api.asset.StringAsset;
+import org.jboss.shrinkwrap.api.spec.JavaArchive;
+import org.testng.annotations.Test;
+import org.wildfly.swarm.microprofile.faulttolerance.ExecutionEngine;
+import org.wildfly.swarm.microprofile.faulttolerance.TestArchive;
+
+public class NativeExecutionEngineTest extends Arquillian {
+
+    @Deployment
+    public static JavaArchive createTestArchive() {
+        return TestArchive.createBase().addPackage(NativeExecutionEngineTest.class.getPackage())
+                .addAsManifestResource(new StringAsset(ExecutionEngine.CONFIG_KEY + "=" + ExecutionEngine.NATIVE), "microprofile-config.properties");
+    }
+
+    @Inject
+    NativeService service;
+
+    @Test
+    public void testRetry() {
+        assertEquals(service.retry(), NativeService.HELLO);
+        assertEquals(service.getRetryCounter().get(), 3);
+    }
+
+    @Test
+    public void testCircuitBreaker() {
+        for (int i = 0; i < NativeService.REQUEST_THRESHOLD; i++) {
+            try {
+                service.breaker();
+                fail();
+            } catch (IllegalStateException expected) {
+            }
+        }
+        try {
+            service.breaker();
+            fail();
+        } catch (CircuitBreakerOpenException expected) {
+        }
+        assertEquals(service.getBreakerCounter().get(), NativeService.REQUEST_THRESHOLD);
+    }
+
+    @Test
+    public void testOpenCircuitNotRetried() {
+        long start = System.nanoTime();
+        try {
+            service.retryBreaker();
+            fail();
+        } catch (CircuitBreakerOpenException expected) {
+        }
+        // The circuit opens after the second attempt, the remaining retries are not delayed
+        assertEquals(service.getRetryBreakerCounter().get(), 2);
+        assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) < 800);
+    }
+
+    @Test(expectedExceptions = TimeoutException.class)
+    public void testTimeout() throws InterruptedException {
+        service.timeout();
+    }
+
+    @Test
+    public void testTimeoutFallback() throws InterruptedException {
+        assertEquals(service.timeoutFallback(), NativeService.FALLBACK);
+    }
+
+    @Test
+    public void testAsync() throws InterruptedException, ExecutionException {
+        assertEquals(service.async().get(), NativeService.HELLO);
+    }
+
+    @Test
+    public void testAsyncTimeout() throws InterruptedException {
+        Future<String> future = service.asyncTimeout();
+        try {
+            future.get();
+            fail();
+        } catch (ExecutionException expected) {
+            assertTrue(expected.getCause() instanceof TimeoutException, "TimeoutException expected: " + expected.getCause());
+        }
+    }
+
+}
@@ -0,0 +1,107 @@
+/*
+ * Copyright 2017 Red Hat, Inc, and individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.wildfly.swarm.microprofile.faulttolerance.engine;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.enterprise.context.ApplicationScoped;
+
+import org.eclipse.microprofile.faulttolerance.Asynchronous;
+import org.eclipse.microprofile.faulttolerance.CircuitBreaker;
+import org.eclipse.microprofile.faulttolerance.Fallback;
+import org.eclipse.microprofile.faulttolerance.Retry;
+import org.eclipse.microprofile.faulttolerance.Timeout;
+
+@ApplicationScoped
+public class NativeService {
+
+    static final String HELLO = "Hello";
+
+    static final String FALLBACK = "Fallback";
+
+    static final int REQUEST_THRESHOLD = 2;
+
+    @Retry(maxRetries = 3)
+    public String retry() {
+        if (retryCounter.incrementAndGet() < 3) {
+            throw new IllegalStateException();
+        }
+        return HELLO;
+    }
+
+    @CircuitBreaker(requestVolumeThreshold = REQUEST_THRESHOLD, failureRatio = 1, delay = 50000)
+    public String breaker() {
+        breakerCounter.incrementAndGet();
+        throw new IllegalStateException();
+    }
+
+    @Retry(maxRetries = 5, delay = 200, jitter = 0)
+    @CircuitBreaker(requestVolumeThreshold = 2, failureRatio = 1, delay = 50000)
+    public String retryBreaker() {
+        retryBreakerCounter.incrementAndGet();
+        throw new IllegalStateException();
+    }
+
+    @Timeout(100)
+    public String timeout() throws InterruptedException {
+        Thread.sleep(300);
+        return HELLO;
+    }
+
+    @Timeout(100)
+    @Fallback(fallbackMethod = "fallback")
+    public String timeoutFallback() throws InterruptedException {
+        Thread.sleep(300);
+        return HELLO;
+    }
+
+    @Asynchronous
+    public Future<String> async() {
+        return CompletableFuture.completedFuture(HELLO);
+    }
+
+    @Asynchronous
+    @Timeout(100)
+    public Future<String> asyncTimeout() throws InterruptedException {
+        Thread.sleep(5000);
+        return CompletableFuture.completedFuture(HELLO);
+    }
+
+    String fallback() {
+        return FALLBACK;
+    }
+
+    AtomicInteger getRetryCounter() {
+        return retryCounter;
+    }
+
+    AtomicInteger getBreakerCounter() {
+        return breakerCounter;
+    }
+
+    AtomicInteger getRetryBreakerCounter() {
+        return retryBreakerCounter;
+    }
+
+    private final AtomicInteger retryCounter = new AtomicInteger();
+
+    private final AtomicInteger breakerCounter = new AtomicInteger();
+
+    private final AtomicInteger retryBreakerCounter = new AtomicInteger();
+
+}
@@ -0,0 +1,61 @@
+/*
+ * Copyright 2017 Red Hat, Inc, and individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.wildfly.swarm.microprofile.faulttolerance.fallback.handler;
+
+import static org.testng.Assert.assertEquals;
+
+import javax.inject.Inject;
+
+import org.jboss.arquillian.container.test.api.Deployment;
+import org.jboss.arquillian.testng.Arquillian;
+import org.jboss.shrinkwrap.api.asset.StringAsset;
+import org.jboss.shrinkwrap.api.spec.JavaArchive;
+import org.testng.annotations.Test;
+import org.wildfly.swarm.microprofile.faulttolerance.TestArchive;
+
+/**
+ * Fallback handler instances must be reused if the handler is a normal-scoped bean or if pooling is enabled.
+ */
+public class FallbackHandlerReuseTest extends Arquillian {
+
+    static final int INVOCATIONS = 5;
+
+    @Deployment
+    public static JavaArchive createTestArchive() {
+        return TestArchive.createBase().addPackage(FallbackHandlerReuseTest.class.getPackage())
+                .addAsManifestResource(new StringAsset(HandlerService.class.getName() + "/pooled/Fallback/poolSize=1"), "microprofile-config.properties");
+    }
+
+    @Inject
+    HandlerService service;
+
+    @Test
+    public void testContextualInstanceReused() {
+        for (int i = 0; i < INVOCATIONS; i++) {
+            assertEquals(service.applicationScoped(), ApplicationScopedHandler.FALLBACK);
+        }
+        assertEquals(ApplicationScopedHandler.CREATED.get(), 1);
+    }
+
+    @Test
+    public void testDependentInstancePooled() {
+        for (int i = 0; i < INVOCATIONS; i++) {
+            assertEquals(service.pooled(), DependentHandler.FALLBACK);
+        }
+        assertEquals(DependentHandler.CREATED.get(), 1);
+    }
+
+}
@@ -0,0 +1,63 @@
+/*
+ * Copyright 2017 Red Hat, Inc, and individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.wildfly.swarm.microprofile.faulttolerance.retry.async;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+import static org.testng.Assert.fail;
+
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import javax.inject.Inject;
+
+import org.jboss.arquillian.container.test.api.Deployment;
+import org.jboss.arquillian.testng.Arquillian;
+import org.jboss.shrinkwrap.api.spec.JavaArchive;
+import org.testng.annotations.Test;
+import org.wildfly.swarm.microprofile.faulttolerance.TestArchive;
+
+/**
+ * A pool thread must not be held during a retry delay.
+ */
+public class AsyncRetryDelayTest extends Arquillian {
+
+    @Deployment
+    public static JavaArchive createTestArchive() {
+        return TestArchive.createBase().addPackage(AsyncRetryDelayTest.class.getPackage());
+    }
+
+    @Inject
+    DelayedRetryService service;
+
+    @Test
+    public void testRetryDelayDoesNotHoldThread() throws Exception {
+        Future<String> failing = service.call(true);
+        TimeUnit.MILLISECONDS.sleep(200);
+        // The retry of the first call is waiting for the delay, the only thread must be available
+        assertEquals(service.call(false).get(DelayedRetryService.DELAY / 2, TimeUnit.MILLISECONDS), DelayedRetryService.OK);
+        assertFalse(failing.isDone());
+        try {
+            failing.get(5 * DelayedRetryService.DELAY, TimeUnit.MILLISECONDS);
+            fail();
+        } catch (ExecutionException expected) {
+            assertTrue(expected.getCause() instanceof IllegalStateException, "IllegalStateException expected: " + expected.getCause());
+        }
+    }
+
+}
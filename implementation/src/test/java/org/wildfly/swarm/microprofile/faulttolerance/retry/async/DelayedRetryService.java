@@ -0,0 +1,45 @@
+/*
+ * Copyright 2017 Red Hat, Inc, and individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.wildfly.swarm.microprofile.faulttolerance.retry.async;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Future;
+
+import javax.enterprise.context.ApplicationScoped;
+
+import org.eclipse.microprofile.faulttolerance.Asynchronous;
+import org.eclipse.microprofile.faulttolerance.Bulkhead;
+import org.eclipse.microprofile.faulttolerance.Retry;
+
+@ApplicationScoped
+public class DelayedRetryService {
+
+    static final String OK = "ok";
+
+    static final long DELAY = 2000;
+
+    // A single thread is available
+    @Asynchronous
+    @Bulkhead(value = 1, waitingTaskQueue = 1)
+    @Retry(maxRetries = 1, delay = DELAY, jitter = 0, maxDuration = 10 * DELAY)
+    public Future<String> call(boolean fail) {
+        if (fail) {
+            throw new IllegalStateException();
+        }
+        return CompletableFuture.completedFuture(OK);
+    }
+
+}
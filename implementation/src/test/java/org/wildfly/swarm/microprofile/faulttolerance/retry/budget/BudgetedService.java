@@ -0,0 +1,62 @@
+/*
+ * Copyright 2017 Red Hat, Inc, and individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.wildfly.swarm.microprofile.faulttolerance.retry.budget;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.enterprise.context.ApplicationScoped;
+
+import org.eclipse.microprofile.faulttolerance.Retry;
+
+@ApplicationScoped
+public class BudgetedService {
+
+    static final String BUDGET = "backend";
+
+    static final String OK = "ok";
+
+    // All methods share the budget configured in RetryBudgetTest
+
+    @Retry(maxRetries = 5)
+    public String ping() {
+        return OK;
+    }
+
+    @Retry(maxRetries = 5)
+    public String fail() {
+        failInvocations.incrementAndGet();
+        throw new IllegalStateException();
+    }
+
+    @Retry(maxRetries = 5)
+    public String failOther() {
+        failOtherInvocations.incrementAndGet();
+        throw new IllegalStateException();
+    }
+
+    AtomicInteger getFailInvocations() {
+        return failInvocations;
+    }
+
+    AtomicInteger getFailOtherInvocations() {
+        return failOtherInvocations;
+    }
+
+    private final AtomicInteger failInvocations = new AtomicInteger();
+
+    private final AtomicInteger failOtherInvocations = new AtomicInteger();
+
+}
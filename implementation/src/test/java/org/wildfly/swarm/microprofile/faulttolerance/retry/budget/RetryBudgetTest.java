@@ -0,0 +1,69 @@
+/*
+ * Copyright 2017 Red Hat, Inc, and individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.wildfly.swarm.microprofile.faulttolerance.retry.budget;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.fail;
+
+import javax.inject.Inject;
+
+import org.jboss.arquillian.container.test.api.Deployment;
+import org.jboss.arquillian.testng.Arquillian;
+import org.jboss.shrinkwrap.api.asset.StringAsset;
+import org.jboss.shrinkwrap.api.spec.JavaArchive;
+import org.testng.annotations.Test;
+import org.wildfly.swarm.microprofile.faulttolerance.TestArchive;
+
+/**
+ * Retries of all operations with the same budget key must be capped by a shared retry budget.
+ */
+public class RetryBudgetTest extends Arquillian {
+
+    @Deployment
+    public static JavaArchive createTestArchive() {
+        String budgetPrefix = "org_wildfly_swarm_microprofile_faulttolerance_retryBudget/" + BudgetedService.BUDGET + "/";
+        return TestArchive.createBase().addPackage(RetryBudgetTest.class.getPackage())
+                .addAsManifestResource(new StringAsset("Retry/budget=" + BudgetedService.BUDGET + "\n" + budgetPrefix
+                        + "capacity=2\n" + budgetPrefix + "ratio=0.5"), "microprofile-config.properties");
+    }
+
+    @Inject
+    BudgetedService service;
+
+    @Test
+    public void testRetriesCappedByBudget() {
+        // The bucket starts full - two retries are allowed
+        assertFailure(() -> service.fail());
+        assertEquals(service.getFailInvocations().get(), 3);
+        // The budget is exhausted for all operations with the same key
+        assertFailure(() -> service.failOther());
+        assertEquals(service.getFailOtherInvocations().get(), 1);
+        // Two successful invocations earn one retry
+        assertEquals(service.ping(), BudgetedService.OK);
+        assertEquals(service.ping(), BudgetedService.OK);
+        assertFailure(() -> service.fail());
+        assertEquals(service.getFailInvocations().get(), 5);
+    }
+
+    private void assertFailure(Runnable action) {
+        try {
+            action.run();
+            fail("IllegalStateException expected");
+        } catch (IllegalStateException expected) {
+        }
+    }
+
+}
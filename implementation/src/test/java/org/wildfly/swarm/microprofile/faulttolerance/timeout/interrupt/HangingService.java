@@ -0,0 +1,47 @@
+/*
+ * Copyright 2017 Red Hat, Inc, and individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.wildfly.swarm.microprofile.faulttolerance.timeout.interrupt;
+
+import java.util.concurrent.TimeUnit;
+
+import javax.enterprise.context.ApplicationScoped;
+
+import org.eclipse.microprofile.faulttolerance.Timeout;
+
+@ApplicationScoped
+public class HangingService {
+
+    static final long TIMEOUT = 200;
+
+    static final long HANG = 10000;
+
+    @Timeout(TIMEOUT)
+    public String hang() throws InterruptedException {
+        TimeUnit.MILLISECONDS.sleep(HANG);
+        return "done";
+    }
+
+    @Timeout(TIMEOUT)
+    public String ignoreInterrupt() {
+        // Busy wait, i.e. the interrupt is ignored
+        long end = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(2 * TIMEOUT);
+        while (System.nanoTime() < end) {
+            Thread.yield();
+        }
+        return "done";
+    }
+
+}
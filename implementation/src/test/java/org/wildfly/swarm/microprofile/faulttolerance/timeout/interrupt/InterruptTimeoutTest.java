@@ -0,0 +1,82 @@
+/*
+ * Copyright 2017 Red Hat, Inc, and individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.wildfly.swarm.microprofile.faulttolerance.timeout.interrupt;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+import static org.testng.Assert.fail;
+
+import javax.inject.Inject;
+
+import org.eclipse.microprofile.faulttolerance.exceptions.TimeoutException;
+import org.jboss.arquillian.container.test.api.Deployment;
+import org.jboss.arquillian.testng.Arquillian;
+import org.jboss.shrinkwrap.api.asset.StringAsset;
+import org.jboss.shrinkwrap.api.spec.JavaArchive;
+import org.testng.annotations.Test;
+import org.wildfly.swarm.microprofile.faulttolerance.HystrixExtension;
+import org.wildfly.swarm.microprofile.faulttolerance.TestArchive;
+
+/**
+ * If enabled, the caller thread of a synchronous operation must be interrupted once the timeout expires.
+ */
+public class InterruptTimeoutTest extends Arquillian {
+
+    @Deployment
+    public static JavaArchive createTestArchive() {
+        return TestArchive.createBase().addPackage(InterruptTimeoutTest.class.getPackage())
+                .addAsManifestResource(new StringAsset("Timeout/interrupt=true"), "microprofile-config.properties");
+    }
+
+    @Inject
+    HangingService service;
+
+    @Inject
+    HystrixExtension extension;
+
+    @Test
+    public void testCallerThreadInterrupted() throws InterruptedException, NoSuchMethodException {
+        String methodKey = HangingService.class.getMethod("hang").toGenericString();
+        long start = System.nanoTime();
+        try {
+            service.hang();
+            fail("TimeoutException expected");
+        } catch (TimeoutException expected) {
+        }
+        assertTrue((System.nanoTime() - start) / 1_000_000 < HangingService.HANG / 2, "The caller thread was not interrupted");
+        // The interrupt must not leak into subsequent work
+        assertFalse(Thread.currentThread().isInterrupted());
+        // The invocation completed exceptionally once interrupted
+        assertEquals(extension.getExecutionEngine().getTimeoutStoppedCount(methodKey), 1);
+        assertEquals(extension.getExecutionEngine().getTimeoutNotStoppedCount(methodKey), 0);
+    }
+
+    @Test
+    public void testInterruptIgnored() throws NoSuchMethodException {
+        String methodKey = HangingService.class.getMethod("ignoreInterrupt").toGenericString();
+        try {
+            service.ignoreInterrupt();
+            fail("TimeoutException expected");
+        } catch (TimeoutException expected) {
+        }
+        assertFalse(Thread.currentThread().isInterrupted());
+        // The invocation ran to completion regardless of the interrupt
+        assertEquals(extension.getExecutionEngine().getTimeoutStoppedCount(methodKey), 0);
+        assertEquals(extension.getExecutionEngine().getTimeoutNotStoppedCount(methodKey), 1);
+    }
+
+}
@@ -0,0 +1,48 @@
+/*
+ * Copyright 2017 Red Hat, Inc, and individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.wildfly.swarm.microprofile.faulttolerance.timeout.precision;
+
+import java.time.temporal.ChronoUnit;
+import java.util.concurrent.TimeUnit;
+
+import javax.enterprise.context.ApplicationScoped;
+
+import org.eclipse.microprofile.faulttolerance.Timeout;
+
+@ApplicationScoped
+public class PreciseService {
+
+    static final String OK = "ok";
+
+    @Timeout(value = 500, unit = ChronoUnit.MICROS)
+    public String micros(long sleepMillis) throws InterruptedException {
+        if (sleepMillis > 0) {
+            TimeUnit.MILLISECONDS.sleep(sleepMillis);
+        }
+        return OK;
+    }
+
+    @Timeout(value = 250000, unit = ChronoUnit.NANOS)
+    public String nanos() {
+        return OK;
+    }
+
+    @Timeout(value = Long.MAX_VALUE, unit = ChronoUnit.MILLIS)
+    public String unbounded() {
+        return OK;
+    }
+
+}
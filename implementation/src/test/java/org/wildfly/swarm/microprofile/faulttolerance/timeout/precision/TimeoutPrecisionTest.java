@@ -0,0 +1,80 @@
+/*
+ * Copyright 2017 Red Hat, Inc, and individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.wildfly.swarm.microprofile.faulttolerance.timeout.precision;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
+import static org.testng.Assert.fail;
+
+import javax.inject.Inject;
+
+import org.eclipse.microprofile.faulttolerance.exceptions.TimeoutException;
+import org.jboss.arquillian.container.test.api.Deployment;
+import org.jboss.arquillian.testng.Arquillian;
+import org.jboss.shrinkwrap.api.spec.JavaArchive;
+import org.testng.annotations.Test;
+import org.wildfly.swarm.microprofile.faulttolerance.TestArchive;
+import org.wildfly.swarm.microprofile.faulttolerance.config.TimeoutConfig;
+
+/**
+ * Sub-millisecond timeouts must not be truncated and very long timeouts must not overflow.
+ */
+public class TimeoutPrecisionTest extends Arquillian {
+
+    @Deployment
+    public static JavaArchive createTestArchive() {
+        return TestArchive.createBase().addPackage(TimeoutPrecisionTest.class.getPackage());
+    }
+
+    @Inject
+    PreciseService service;
+
+    @Test
+    public void testSubMillisecondTimeout() throws InterruptedException {
+        try {
+            service.micros(5);
+            fail("TimeoutException expected");
+        } catch (TimeoutException expected) {
+        }
+    }
+
+    @Test
+    public void testSubMillisecondTimeoutNotTruncated() throws InterruptedException {
+        // A timeout truncated to 0 would fail every invocation, a single invocation may be slow on a cold JVM
+        int succeeded = 0;
+        for (int i = 0; i < 10; i++) {
+            try {
+                assertEquals(service.micros(0), PreciseService.OK);
+                succeeded++;
+            } catch (TimeoutException ignored) {
+            }
+        }
+        assertTrue(succeeded > 0);
+    }
+
+    @Test
+    public void testTimeoutNanos() throws NoSuchMethodException {
+        assertEquals(new TimeoutConfig(PreciseService.class.getMethod("micros", long.class)).getTimeoutNanos(), 500000L);
+        assertEquals(new TimeoutConfig(PreciseService.class.getMethod("nanos")).getTimeoutNanos(), 250000L);
+        assertEquals(new TimeoutConfig(PreciseService.class.getMethod("unbounded")).getTimeoutNanos(), Long.MAX_VALUE);
+    }
+
+    @Test
+    public void testLongTimeout() {
+        assertEquals(service.unbounded(), PreciseService.OK);
+    }
+
+}
@@ -0,0 +1,55 @@
+/*
+ * Copyright 2017 Red Hat, Inc, and individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.wildfly.swarm.microprofile.faulttolerance.warmup;
+
+import static org.testng.Assert.assertEquals;
+
+import java.util.concurrent.ExecutionException;
+
+import javax.inject.Inject;
+
+import org.jboss.arquillian.container.test.api.Deployment;
+import org.jboss.arquillian.testng.Arquillian;
+import org.jboss.shrinkwrap.api.spec.JavaArchive;
+import org.testng.annotations.Test;
+import org.wildfly.swarm.microprofile.faulttolerance.HystrixExtension;
+import org.wildfly.swarm.microprofile.faulttolerance.TestArchive;
+
+/**
+ * Execution plans must be prepared when the deployment is validated, i.e. before the first invocation.
+ */
+public class WarmUpTest extends Arquillian {
+
+    @Deployment
+    public static JavaArchive createTestArchive() {
+        return TestArchive.createBase().addPackage(WarmUpTest.class.getPackage());
+    }
+
+    @Inject
+    HystrixExtension extension;
+
+    @Inject
+    WarmService service;
+
+    @Test
+    public void testBulkheadInitializedBeforeFirstInvocation() throws NoSuchMethodException, InterruptedException, ExecutionException {
+        String methodKey = WarmService.class.getMethod("ping").toGenericString();
+        // The thread pool of the bulkhead already exists
+        assertEquals(extension.getExecutionEngine().getBulkheadQueueSize(methodKey), 0);
+        assertEquals(service.ping().get(), WarmService.OK);
+    }
+
+}